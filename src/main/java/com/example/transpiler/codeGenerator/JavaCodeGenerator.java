@@ -1,17 +1,13 @@
 package com.example.transpiler.codeGenerator;
 
 import com.example.transpiler.lexer.Lexer;
-import com.example.transpiler.lexer.Token;
+import com.example.transpiler.lexer.TokenBuffer;
 import com.example.transpiler.lexer.TokenType;
 import com.example.transpiler.syntaxer.*;
 import com.example.transpiler.typeChecker.TypeChecker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.List;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,14 +30,9 @@ public class JavaCodeGenerator {
     private void generateJavaCodeForClass(File file, ClassType type) {
 
         try {
-            // getting program as String
-            String stringWithSourceCode = getStringForFile(file);
-            // generating tokens
-            List<Token> tokens = Lexer.getTokensFromCode(stringWithSourceCode);
-            String className = tokens.stream()
-                .filter(token -> token.getType().equals(TokenType.IDENTIFIER))
-                .map(Token::getLexeme)
-                .findFirst().orElseThrow(() -> new CompilationException("No name for class"));
+            // generating tokens straight from the file bytes
+            TokenBuffer tokens = Lexer.tokenize(file.toPath());
+            String className = getClassName(tokens);
             // creating AST-tree from tokens
             Tree tree = GrammarChecker.checkGrammar(tokens);
             ObjectMapper mapper = new ObjectMapper();
@@ -58,9 +49,13 @@ public class JavaCodeGenerator {
 
     }
 
-    private String getStringForFile(File file) throws IOException {
-        Path path = Paths.get(file.getPath());
-        return Files.readString(path);
+    private String getClassName(TokenBuffer tokens) {
+        for (int index = 0; index < tokens.size(); index++) {
+            if (tokens.type(index) == TokenType.IDENTIFIER) {
+                return tokens.lexeme(index);
+            }
+        }
+        throw new CompilationException("No name for class");
     }
 
 }
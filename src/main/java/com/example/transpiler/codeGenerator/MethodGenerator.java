@@ -168,10 +168,7 @@ public class MethodGenerator {
                 return expressionFromString(line);
             }
             case MATH_EXPRESSION -> {
-                String first = TreeUtil.expressionTypeToString(expression.getChildNodes().get(0));
-                String operation = expression.getChildNodes().get(1).getValue();
-                String second = TreeUtil.expressionTypeToString(expression.getChildNodes().get(2));
-                return expressionFromString(first + " " + operation + " " + second);
+                return expressionFromString(TreeUtil.operandToString(expression));
             }
             default -> throw new TypeCheckerException("Provided node should be an expression");
         }
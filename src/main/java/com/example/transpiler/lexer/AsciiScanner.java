@@ -0,0 +1,20 @@
+package com.example.transpiler.lexer;
+
+/**
+ * Alternative scanning path of {@link Lexer} for ASCII sources.
+ * Implementations are loaded by name, so ones that need optional JDK modules are only compiled in their build profile.
+ */
+interface AsciiScanner {
+
+    /**
+     * @return true if the scanner can run on this JVM
+     */
+    boolean isSupported();
+
+    /**
+     * Produces the same tokens as {@link Lexer#tokenize(CharSequence)}
+     * @param source ASCII source
+     * @return buffer of tokens in source order
+     */
+    TokenBuffer tokenize(AsciiSource source) throws InvalidTokenException;
+}
@@ -0,0 +1,77 @@
+package com.example.transpiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Character view over bytes of an ASCII source, each byte is one character.
+ * Lets the lexer read mapped files without decoding or copying them.
+ */
+public class AsciiSource implements CharSequence {
+
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    public AsciiSource(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    private AsciiSource(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new AsciiSource(bytes, offset + start, end - start);
+    }
+
+    ByteBuffer bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return index of the first character in the byte buffer
+     */
+    int offset() {
+        return offset;
+    }
+
+    /**
+     * @return true if every byte is below 0x80, so the view is the same as the decoded text
+     */
+    public boolean isAscii() {
+        for (int index = offset; index < offset + length; index++) {
+            if (bytes.get(index) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return source decoded as UTF-8
+     */
+    public String decode() {
+        return StandardCharsets.UTF_8.decode(bytes.slice(offset, length)).toString();
+    }
+
+    @Override
+    public String toString() {
+        byte[] content = new byte[length];
+        bytes.get(offset, content);
+        return new String(content, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,192 +1,514 @@
 package com.example.transpiler.lexer;
 
-import com.example.transpiler.util.Pair;
-
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import com.example.transpiler.util.Pair;
 import lombok.experimental.UtilityClass;
 
+/**
+ * Stateless lexer, safe to call from any number of threads at once.
+ * The scanner keeps its position in locals of each call and writes into a buffer owned by the call,
+ * the only state shared between calls are the read-only character tables and the thread-safe {@link SymbolTable}.
+ */
 @UtilityClass
 public class Lexer {
 
-    private ArrayList<String> words;
-
     private static final char[] declarationSeparators = {';', '\n'};
 
-    private static final List<String> operators = Arrays.asList("and", "or", "xor",
-            "not", "<", "<=", ">", ">=", "=", "/=", "*", "/", "%",
-            "+", "-", "[", "]", "(", ")", ":=", ":", ",", ".", "->", "{", "}");
+    // character classes of the scanner, everything outside ASCII is a word character
+    static final byte WORD = 0;
+    static final byte WHITESPACE = 1;
+    static final byte SEPARATOR = 2;
+    static final byte SYMBOL = 3;
 
-    private static final List<String> keywords = Arrays.asList(
-            "var", "is", "type", "end",
-            "array", "if", "then", "else", "size", "true", "false", "for",
-            "in", "loop", /* "Integer", "Real", "Boolean", */ "return", "while",
-            "class", "method", "extends", "this");
+    // smaller files are read into a heap buffer, mapping them costs more than copying
+    private static final long MAPPING_THRESHOLD = 64 * 1024;
 
-    public List<Token> getTokensFromCode(String program) throws InvalidTokenException {
-        words = splitProgram(program);
-        separateDeclarations(words);
-        for (int order = 0; order < operators.size(); order++) {
-            separateSymbolicOperators(words, order);
+    // number of characters lexed by one parallel task, large enough to outweigh the cost of a task
+    private static final int PARALLEL_CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] characterClasses = new byte[128];
+    // symbol ids of one-character operators and separators
+    private static final int[] characterSymbols = new int[128];
+
+    static {
+        for (char whitespace : " \t\n\u000B\f\r".toCharArray()) {
+            characterClasses[whitespace] = WHITESPACE;
+        }
+        for (char separator : declarationSeparators) {
+            if (characterClasses[separator] == WORD) {
+                characterClasses[separator] = SEPARATOR;
+            }
+        }
+        for (String operator : SymbolTable.operators) {
+            if (isSymbolic(operator)) {
+                for (char symbol : operator.toCharArray()) {
+                    characterClasses[symbol] = SYMBOL;
+                }
+            }
         }
+        for (char symbol = 0; symbol < characterSymbols.length; symbol++) {
+            characterSymbols[symbol] = SymbolTable.lookupFixed(String.valueOf(symbol), 0, 1);
+        }
+    }
 
-        return convertToTokens(words);
+    /**
+     * Splits program into tokens in a single left-to-right pass.
+     * Symbolic operators are emitted one character per token, multi-character
+     * operators like ":=" or "<=" are assembled by the grammar checker.
+     * @param program source code
+     * @return list of tokens in source order
+     */
+    public List<Token> getTokensFromCode(String program) throws InvalidTokenException {
+        return tokenize(program).toTokens();
     }
 
-    private void separateSymbolicOperators(ArrayList<String> words, int order) {
-        for (int i = 0; i < words.size(); i++) {
-            var word = words.get(i);
-            if (isLiteral(word)) continue;
+    /**
+     * Same as {@link #getTokensFromCode(String)} but keeps tokens as offsets into the program
+     * @param program source code
+     * @return buffer of tokens in source order
+     */
+    public TokenBuffer tokenize(CharSequence program) throws InvalidTokenException {
+        TokenBuffer tokens = new TokenBuffer(program);
+        scan(program, tokens, 0, program.length(), 1, 0, null);
+        return tokens;
+    }
 
-            var position = getPositionOfSymbolicOperator(word, order);
-            var operatorIndex = position.getFirst();
-            var operatorLength = position.getSecond();
-            if (operatorIndex == -1 || operatorLength == word.length()) continue;
+    /**
+     * Same as {@link #tokenize(CharSequence)} but lexes chunks of the program in parallel on the common pool
+     * @param program source code, read concurrently
+     * @return buffer of tokens in source order
+     */
+    public TokenBuffer tokenizeParallel(CharSequence program) throws InvalidTokenException {
+        return tokenizeParallel(program, ForkJoinPool.commonPool());
+    }
 
-            var left = word.substring(0, operatorIndex);
-            var operator = word.substring(operatorIndex, operatorIndex + operatorLength);
-            var right = word.substring(operatorIndex + operatorLength);
+    /**
+     * Cuts the program into chunks ending with a newline, lexes each chunk as a separate task
+     * and joins the results. Newlines are never inside a token, so the output is the same as of sequential lexing.
+     * @param program source code, read concurrently
+     * @param pool pool lexing the chunks
+     * @return buffer of tokens in source order
+     */
+    public TokenBuffer tokenizeParallel(CharSequence program, ForkJoinPool pool) throws InvalidTokenException {
+        int length = program.length();
+        if (length < 2 * PARALLEL_CHUNK_SIZE) {
+            return tokenize(program);
+        }
+        List<ForkJoinTask<Pair<TokenBuffer, Integer>>> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        while (chunkStart < length) {
+            int chunkEnd = Math.min(length, chunkStart + PARALLEL_CHUNK_SIZE);
+            while (chunkEnd < length && program.charAt(chunkEnd - 1) != '\n') {
+                chunkEnd++;
+            }
+            int start = chunkStart;
+            int end = chunkEnd;
+            chunks.add(pool.submit(() -> {
+                // lines are counted from the chunk start and shifted when the chunks are joined
+                TokenBuffer chunk = new TokenBuffer(program, TokenBuffer.initialCapacity(end - start));
+                int lastLine = scan(program, chunk, start, end, 1, start, null);
+                return new Pair<>(chunk, lastLine);
+            }));
+            chunkStart = chunkEnd;
+        }
+        TokenBuffer tokens = new TokenBuffer(program);
+        int lineShift = 0;
+        try {
+            for (ForkJoinTask<Pair<TokenBuffer, Integer>> task : chunks) {
+                // joining in source order reports the same invalid token as sequential lexing
+                Pair<TokenBuffer, Integer> chunk = task.join();
+                tokens.append(chunk.getFirst(), 0, chunk.getFirst().size(), 0, lineShift, 0, 0);
+                lineShift += chunk.getSecond() - 1;
+            }
+        } finally {
+            chunks.forEach(task -> task.cancel(false));
+        }
+        return tokens;
+    }
 
-            words.set(i, left);
-            words.add(i + 1, operator);
-            words.add(i + 2, right);
+    /**
+     * Applies an edit to the source of a buffer and re-lexes only the affected part.
+     * Lexing restarts after the last ';' or newline before the edit and stops at the first token
+     * after the edit that starts where a token of the previous buffer started, the remaining tokens are copied.
+     * @param previous buffer of the source before the edit
+     * @param edit replaced range and its new text
+     * @return buffer of the edited source and the range of tokens that changed
+     */
+    public TokenDelta relex(TokenBuffer previous, SourceEdit edit) throws InvalidTokenException {
+        CharSequence oldSource = previous.getSource();
+        int offset = edit.getOffset();
+        int removedEnd = offset + edit.getRemovedLength();
+        Objects.checkFromToIndex(offset, removedEnd, oldSource.length());
+        String inserted = edit.getInsertedText();
+        String source = new StringBuilder(oldSource.length() - edit.getRemovedLength() + inserted.length())
+                .append(oldSource, 0, offset)
+                .append(inserted)
+                .append(oldSource, removedEnd, oldSource.length())
+                .toString();
+
+        // the scanner carries no state across ';' and newlines, so lexing can restart right after them
+        int restart = offset;
+        while (restart > 0 && !isRestartPoint(oldSource.charAt(restart - 1))) {
+            restart--;
+        }
+        int firstChanged = previous.firstTokenFrom(restart);
+        int line = 1;
+        int lineStart = 0;
+        int skippedFrom = 0;
+        if (firstChanged > 0) {
+            int last = firstChanged - 1;
+            line = previous.line(last);
+            lineStart = previous.start(last) - previous.column(last) + 1;
+            skippedFrom = previous.start(last) + previous.length(last);
+        }
+        for (int index = skippedFrom; index < restart; index++) {
+            if (oldSource.charAt(index) == '\n') {
+                line++;
+                lineStart = index + 1;
+            }
         }
 
-        removeBlank(words);
+        TokenBuffer tokens = new TokenBuffer(source, previous.size() + inserted.length() / 4 + 16);
+        tokens.append(previous, 0, firstChanged, 0, 0, 0, 0);
+        Resync resync = new Resync(previous, offset + inserted.length(), inserted.length() - edit.getRemovedLength());
+        scan(source, tokens, restart, source.length(), line, lineStart, resync);
+        int previousEnd = resync.matched == -1 ? previous.size() : resync.matched;
+        int end = tokens.size();
+        // tokens between the restart point and the edit are usually lexed the same way again
+        while (firstChanged < previousEnd && firstChanged < end && tokens.sameToken(firstChanged, previous)) {
+            firstChanged++;
+        }
+        if (resync.matched != -1) {
+            tokens.append(previous, resync.matched, previous.size(), resync.shift, resync.lineShift,
+                    previous.line(resync.matched), resync.columnShift);
+        }
+        return new TokenDelta(tokens, firstChanged, previousEnd - firstChanged, end - firstChanged);
     }
 
-    private static void removeBlank(ArrayList<String> words) {
-        for (int index = words.size() - 1; index >= 0; index--) {
-            if (words.get(index).isEmpty())
-                words.remove(index);
+    /**
+     * Lexes the program between the indices, stops early once the previous token stream is met again
+     * @param end index the scan stops at, must not be inside a token
+     * @param resync previous tokens to synchronize with, null to lex until the end
+     * @return line the scan stopped on
+     */
+    private int scan(CharSequence program, TokenBuffer tokens, int index, int end, int line, int lineStart,
+                     Resync resync) throws InvalidTokenException {
+        while (index < end) {
+            char symbol = program.charAt(index);
+            if (resync != null && index >= resync.from && classOf(symbol) != WHITESPACE
+                    && resync.matches(index, line, index - lineStart + 1)) {
+                return line;
+            }
+            switch (classOf(symbol)) {
+                case WHITESPACE -> {
+                    index++;
+                    if (symbol == '\n') {
+                        line++;
+                        lineStart = index;
+                    }
+                }
+                case SEPARATOR, SYMBOL -> {
+                    addCharacter(tokens, symbol, index, line, index - lineStart + 1);
+                    index++;
+                }
+                default -> {
+                    int wordEnd = scanWord(program, index, end);
+                    addWord(tokens, program, index, wordEnd, line, index - lineStart + 1);
+                    index = wordEnd;
+                }
+            }
         }
+        return line;
     }
 
-    private static Pair<Integer, Integer> getPositionOfSymbolicOperator(String word, int order) {
-        int index = -1;
-        int length = 0;
-
-        var operator = operators.get(order);
-        if (!isSymbolic(operator)) return new Pair<>(index, length);
-
-        var operatorIndex = word.indexOf(operator);
-        if (operatorIndex == -1) return new Pair<>(index, length);
-
-        index = operatorIndex;
-        length = operator.length();
-
-        return new Pair<>(index, length);
+    /**
+     * Adds a token of one separator or symbolic operator character
+     */
+    void addCharacter(TokenBuffer tokens, char symbol, int index, int line, int column) {
+        TokenType type = classOf(symbol) == SEPARATOR ? TokenType.DECLARATION_SEPARATOR : TokenType.OPERATOR;
+        tokens.add(type, characterSymbols[symbol], index, 1, line, column);
     }
 
-    private static boolean isSymbolic(String string) {
-        if (string.length() == 0) return false;
+    private boolean isRestartPoint(char symbol) {
+        return symbol == '\n' || classOf(symbol) == SEPARATOR;
+    }
 
-        for (int index = 0; index < string.length(); index++) {
-            if (Character.isAlphabetic(string.charAt(index)))
-                return false;
+    /**
+     * Lexes a source file straight from its bytes, files above a threshold are memory-mapped.
+     * Sources are expected to be ASCII, the file is decoded only if lexing hits a non-ASCII byte.
+     * Uses vector scanning when it is available, see {@link #isVectorScanningAvailable()}.
+     * @param path source file
+     * @return buffer of tokens in source order
+     */
+    public TokenBuffer tokenize(Path path) throws IOException, InvalidTokenException {
+        AsciiSource source = new AsciiSource(readBytes(path));
+        try {
+            return VectorSupport.scanner != null ? VectorSupport.scanner.tokenize(source) : tokenize(source);
+        } catch (InvalidTokenException e) {
+            if (source.isAscii()) {
+                throw e;
+            }
+            // a non-ASCII byte was read as a separate character, lex the decoded text to report it correctly
+            return tokenize(source.decode());
         }
-
-        return true;
     }
 
-    private List<Token> convertToTokens(List<String> words) throws InvalidTokenException {
-        return words.stream()
-                .map(Lexer::resolveToken)
-                .collect(Collectors.toList());
+    /**
+     * Same as {@link #tokenize(CharSequence)} but finds whitespace and word boundaries
+     * in a vector of bytes at once instead of character by character
+     * @param source ASCII source
+     * @return buffer of tokens in source order
+     * @throws UnsupportedOperationException if vector scanning is not available
+     */
+    public TokenBuffer tokenizeVectorized(AsciiSource source) throws InvalidTokenException {
+        if (VectorSupport.scanner == null) {
+            throw new UnsupportedOperationException(
+                    "Vector scanning needs a build with -Pvector and --add-modules jdk.incubator.vector");
+        }
+        return VectorSupport.scanner.tokenize(source);
     }
 
-    private Token resolveToken(String word) throws InvalidTokenException {
-        if (keywords.contains(word)) return new Token(TokenType.KEYWORD, word);
-        if (operators.contains(word)) return new Token(TokenType.OPERATOR, word);
-        if (isDeclarationSeparator(word)) return new Token(TokenType.DECLARATION_SEPARATOR, word);
-        if (isIdentifier(word)) return new Token(TokenType.IDENTIFIER, word);
-        if (isLiteral(word)) return new Token(TokenType.LITERAL, word);
-        throw new InvalidTokenException(word);
+    /**
+     * @return true if the build has the vector scanner (-Pvector), the JVM runs with the jdk.incubator.vector module,
+     *          its preferred vector size is supported and the system property transpiler.lexer.vector is not false
+     */
+    public boolean isVectorScanningAvailable() {
+        return VectorSupport.scanner != null;
     }
 
-    private boolean isDeclarationSeparator(String word) {
-        if (word.length() != 1) return false;
-
-        for (char definedLexeme : declarationSeparators) {
-            if (word.charAt(0) == definedLexeme)
-                return true;
+    private ByteBuffer readBytes(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                // reading until the buffer is full
+            }
+            return bytes.flip();
         }
+    }
 
-        return false;
+    /**
+     * Lexes characters lazily, see {@link TokenStream}
+     * @param reader source code
+     * @return iterator over tokens that reads the source on demand
+     */
+    public TokenStream stream(Reader reader) {
+        return new TokenStream(reader);
     }
 
-    private boolean isIdentifier(String word) {
-        return Pattern.matches("^[A-Za-z_][A-Za-z_0-9]*$", word);
+    /**
+     * Lexes UTF-8 encoded bytes lazily, see {@link TokenStream}
+     * @param channel source code
+     * @return iterator over tokens that reads the channel on demand
+     */
+    public TokenStream stream(ReadableByteChannel channel) {
+        return new TokenStream(Channels.newReader(channel, StandardCharsets.UTF_8));
     }
 
-    private boolean isLiteral(String word) {
-        return isIntLiteral(word) || isRealLiteral(word);
+    /**
+     * @param symbol character of the source
+     * @return true if no token can contain the character, so the source can be cut right after it
+     */
+    boolean isTokenBoundary(char symbol) {
+        byte characterClass = classOf(symbol);
+        return characterClass == WHITESPACE || characterClass == SEPARATOR;
     }
 
-    private boolean isIntLiteral(String str) {
-        try {
-            int value = Integer.parseInt(str);
-            return value >= 0;
-        } catch (NumberFormatException ignored) {
-            return false;
-        }
+    byte classOf(char symbol) {
+        return symbol < characterClasses.length ? characterClasses[symbol] : WORD;
     }
 
-    private boolean isRealLiteral(String str) {
-        try {
-            var value = Float.parseFloat(str);
-            return value >= 0f;
-        } catch (NumberFormatException ignored) {
-            return false;
+    /**
+     * @param program source code
+     * @param start index of the first word character
+     * @param end index the word cannot reach
+     * @return index right after the word; a word made of digits may contain one '.' followed by a digit
+     */
+    int scanWord(CharSequence program, int start, int end) {
+        boolean digitsOnly = isDigit(program.charAt(start));
+        boolean fractional = false;
+        int index = start + 1;
+        while (index < end) {
+            char symbol = program.charAt(index);
+            if (classOf(symbol) == WORD) {
+                digitsOnly &= isDigit(symbol);
+                index++;
+            } else if (symbol == '.' && digitsOnly && !fractional
+                    && index + 1 < end && isDigit(program.charAt(index + 1))) {
+                fractional = true;
+                index++;
+            } else {
+                break;
+            }
         }
+        return index;
     }
 
-    private ArrayList<String> splitProgram(String program) {
-        program = program.replaceAll("\r\n", "\n");
+    private boolean isDigit(char symbol) {
+        return symbol >= '0' && symbol <= '9';
+    }
 
-        ArrayList<String> elements = new ArrayList<>(
-                Arrays.asList(program.split("[\\t\\n\\s]"))
-        );
+    private static boolean isSymbolic(String string) {
+        if (string.length() == 0) return false;
 
-        separateDeclarations(elements);
+        for (int index = 0; index < string.length(); index++) {
+            if (Character.isAlphabetic(string.charAt(index)))
+                return false;
+        }
 
-        return elements;
+        return true;
     }
 
-    private void separateDeclarations(List<String> words) {
-        for (int i = 0; i < words.size(); i++) {
-            var word = words.get(i);
-            if (word.length() <= 1) continue;
+    void addWord(TokenBuffer tokens, CharSequence program, int start, int end, int line, int column)
+            throws InvalidTokenException {
+        int length = end - start;
+        int symbol = SymbolTable.lookupFixed(program, start, length);
+        if (SymbolTable.isKeyword(symbol)) {
+            tokens.add(TokenType.KEYWORD, symbol, start, length, line, column);
+            return;
+        }
+        if (SymbolTable.isOperator(symbol)) {
+            tokens.add(TokenType.OPERATOR, symbol, start, length, line, column);
+            return;
+        }
+        if (isIdentifier(program, start, end)) {
+            tokens.add(TokenType.IDENTIFIER, SymbolTable.intern(program, start, length), start, length, line, column);
+            return;
+        }
+        LiteralType literalType = literalType(program, start, end);
+        if (literalType != null) {
+            tokens.addLiteral(literalType, start, length, line, column);
+            return;
+        }
+        throw new InvalidTokenException(program.subSequence(start, end).toString());
+    }
 
-            var separatorIndex = getSeparatorIndex(word);
-            if (separatorIndex == -1) continue;
+    /**
+     * @return true if the word matches [A-Za-z_][A-Za-z_0-9]*
+     */
+    private boolean isIdentifier(CharSequence program, int start, int end) {
+        if (!isIdentifierStart(program.charAt(start))) {
+            return false;
+        }
+        for (int index = start + 1; index < end; index++) {
+            char symbol = program.charAt(index);
+            if (!isIdentifierStart(symbol) && !isDigit(symbol)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            var left_word = word.substring(0, separatorIndex);
-            var separator = word.substring(separatorIndex, separatorIndex + 1);
-            var right_word = word.substring(separatorIndex + 1);
+    private boolean isIdentifierStart(char symbol) {
+        return symbol >= 'a' && symbol <= 'z' || symbol >= 'A' && symbol <= 'Z' || symbol == '_';
+    }
 
-            words.set(i, left_word);
-            words.add(i + 1, separator);
-            words.add(i + 2, right_word);
+    /**
+     * @return INTEGER for digits, REAL for digits '.' digits, null if the word is not a literal
+     */
+    private LiteralType literalType(CharSequence program, int start, int end) {
+        int index = skipDigits(program, start, end);
+        if (index == start) {
+            return null;
+        }
+        if (index == end) {
+            return LiteralType.INTEGER;
+        }
+        if (program.charAt(index) != '.') {
+            return null;
         }
+        int fractionStart = index + 1;
+        index = skipDigits(program, fractionStart, end);
+        return index == end && index > fractionStart ? LiteralType.REAL : null;
     }
 
-    private int getSeparatorIndex(String word) {
-        var index = -1;
+    private int skipDigits(CharSequence program, int start, int end) {
+        int index = start;
+        while (index < end && isDigit(program.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
 
-        for (char separator : declarationSeparators) {
-            var separatorIndex = word.indexOf(separator);
-            if (separatorIndex == -1) continue;
-            if (index != -1 && separatorIndex > index) continue;
+    /**
+     * Finds where the re-lexed stream meets the previous one again: from then on both lex the same text
+     */
+    private static final class Resync {
+
+        private final TokenBuffer previous;
+        private final int from;
+        private final int shift;
+        private int candidate;
+        private int matched = -1;
+        private int lineShift;
+        private int columnShift;
+
+        /**
+         * @param previous tokens before the edit
+         * @param from end of the inserted text, tokens before it are always re-lexed
+         * @param shift difference between new and previous offsets after the edit
+         */
+        Resync(TokenBuffer previous, int from, int shift) {
+            this.previous = previous;
+            this.from = from;
+            this.shift = shift;
+            candidate = previous.firstTokenFrom(from - shift);
+        }
 
-            index = separatorIndex;
+        boolean matches(int start, int line, int column) {
+            int previousStart = start - shift;
+            while (candidate < previous.size() && previous.start(candidate) < previousStart) {
+                candidate++;
+            }
+            if (candidate == previous.size() || previous.start(candidate) != previousStart) {
+                return false;
+            }
+            matched = candidate;
+            lineShift = line - previous.line(candidate);
+            columnShift = column - previous.column(candidate);
+            return true;
         }
+    }
 
-        return index;
+    /**
+     * Checks vector support on first use, so that the vector scanner is never loaded without its module
+     */
+    private static final class VectorSupport {
+
+        /**
+         * null if the scanner was not compiled, its module is missing or its vector size is not supported
+         */
+        private static final AsciiScanner scanner = detect();
+
+        private static AsciiScanner detect() {
+            if (!Boolean.parseBoolean(System.getProperty("transpiler.lexer.vector", "true"))
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                Class<?> type = Class.forName(Lexer.class.getPackageName() + ".VectorScanner");
+                AsciiScanner vectorScanner = (AsciiScanner) type.getDeclaredConstructor().newInstance();
+                return vectorScanner.isSupported() ? vectorScanner : null;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,6 @@
+package com.example.transpiler.lexer;
+
+public enum LiteralType {
+    INTEGER,
+    REAL
+}
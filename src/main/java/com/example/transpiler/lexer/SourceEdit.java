@@ -0,0 +1,15 @@
+package com.example.transpiler.lexer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Replacement of a source range by new text, offsets are in the source before the edit
+ */
+@Data
+@AllArgsConstructor
+public class SourceEdit {
+    private final int offset;
+    private final int removedLength;
+    private final String insertedText;
+}
@@ -0,0 +1,262 @@
+package com.example.transpiler.lexer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Global table mapping keywords, operators and identifiers to dense int ids.
+ * Keywords and operators have fixed ids resolved through a perfect hash,
+ * identifiers are interned on first sight and shared by every file of a build.
+ */
+@UtilityClass
+public class SymbolTable {
+
+    public static final int NO_SYMBOL = -1;
+
+    public static final List<String> operators = List.of("and", "or", "xor",
+            "not", "<", "<=", ">", ">=", "=", "/=", "*", "/", "%",
+            "+", "-", "[", "]", "(", ")", ":=", ":", ",", ".", "->", "{", "}");
+
+    public static final List<String> keywords = List.of(
+            "var", "is", "type", "end",
+            "array", "if", "then", "else", "size", "true", "false", "for",
+            "in", "loop", /* "Integer", "Real", "Boolean", */ "return", "while",
+            "class", "method", "extends", "this");
+
+    public static final List<String> separators = List.of(";");
+
+    // keywords, operators and separators in id order
+    private static final String[] fixedSymbols = concat(keywords, operators, separators);
+    private static final int firstOperator = keywords.size();
+    private static final int firstSeparator = firstOperator + operators.size();
+    private static final int maxFixedLength = Arrays.stream(fixedSymbols).mapToInt(String::length).max().orElse(0);
+
+    // perfect hash over fixed symbols: slot = (hash * multiplier) >>> (32 - FIXED_TABLE_BITS)
+    private static final int FIXED_TABLE_BITS = 8;
+    private static final int[] fixedTable = new int[1 << FIXED_TABLE_BITS];
+    private static final int fixedMultiplier = findPerfectMultiplier();
+
+    // identifiers, published through volatile fields so that lookups of known names take no lock
+    private static volatile String[] names = Arrays.copyOf(fixedSymbols, 1024);
+    private static volatile IdentifierSlots identifierSlots = new IdentifierSlots(1024);
+    private static int symbolCount = fixedSymbols.length;
+
+    public static final int VAR = fixed("var");
+    public static final int IS = fixed("is");
+    public static final int END = fixed("end");
+    public static final int IF = fixed("if");
+    public static final int THEN = fixed("then");
+    public static final int ELSE = fixed("else");
+    public static final int LOOP = fixed("loop");
+    public static final int RETURN = fixed("return");
+    public static final int WHILE = fixed("while");
+    public static final int CLASS = fixed("class");
+    public static final int METHOD = fixed("method");
+    public static final int EXTENDS = fixed("extends");
+    public static final int THIS = fixed("this");
+    public static final int LESS = fixed("<");
+    public static final int GREATER = fixed(">");
+    public static final int EQUAL = fixed("=");
+    public static final int MULTIPLY = fixed("*");
+    public static final int DIVIDE = fixed("/");
+    public static final int PLUS = fixed("+");
+    public static final int MINUS = fixed("-");
+    public static final int LEFT_BRACKET = fixed("[");
+    public static final int RIGHT_BRACKET = fixed("]");
+    public static final int LEFT_PARENTHESIS = fixed("(");
+    public static final int RIGHT_PARENTHESIS = fixed(")");
+    public static final int COLON = fixed(":");
+    public static final int COMMA = fixed(",");
+    public static final int DOT = fixed(".");
+
+    // "function" is lexed as an identifier but the grammar treats it as a keyword
+    public static final int FUNCTION = intern("function");
+
+    /**
+     * @param source text containing the symbol
+     * @param start offset of the first character
+     * @param length length of the symbol
+     * @return id of keyword, operator or separator, or NO_SYMBOL if the text is none of them
+     */
+    public int lookupFixed(CharSequence source, int start, int length) {
+        if (length == 0 || length > maxFixedLength) {
+            return NO_SYMBOL;
+        }
+        int id = fixedTable[fixedSlot(hash(source, start, length))] - 1;
+        if (id == NO_SYMBOL || !matches(fixedSymbols[id], source, start, length)) {
+            return NO_SYMBOL;
+        }
+        return id;
+    }
+
+    /**
+     * @param source text containing the identifier
+     * @param start offset of the first character
+     * @param length length of the identifier
+     * @return id of the identifier, assigned on the first call for this name
+     */
+    public int intern(CharSequence source, int start, int length) {
+        int hash = hash(source, start, length);
+        int id = identifierSlots.find(hash, source, start, length);
+        if (id != NO_SYMBOL) {
+            return id;
+        }
+        return internLocked(hash, source, start, length);
+    }
+
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * @param id symbol id
+     * @return shared string for the symbol
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    public boolean isKeyword(int id) {
+        return id >= 0 && id < firstOperator;
+    }
+
+    public boolean isOperator(int id) {
+        return id >= firstOperator && id < firstSeparator;
+    }
+
+    public boolean isSeparator(int id) {
+        return id >= firstSeparator && id < fixedSymbols.length;
+    }
+
+    private static synchronized int internLocked(int hash, CharSequence source, int start, int length) {
+        int id = identifierSlots.find(hash, source, start, length);
+        if (id != NO_SYMBOL) {
+            return id;
+        }
+        id = symbolCount++;
+        String[] currentNames = names;
+        if (id == currentNames.length) {
+            currentNames = Arrays.copyOf(currentNames, currentNames.length * 2);
+            names = currentNames;
+        }
+        currentNames[id] = source.subSequence(start, start + length).toString();
+        IdentifierSlots slots = identifierSlots;
+        if ((symbolCount - fixedSymbols.length) * 2 > slots.capacity()) {
+            slots = slots.resize(currentNames, symbolCount);
+        }
+        slots.insert(hash, id);
+        // publishing the table after the id is written makes it visible to lock-free readers
+        identifierSlots = slots;
+        return id;
+    }
+
+    private static int fixed(String symbol) {
+        int id = lookupFixed(symbol, 0, symbol.length());
+        if (id == NO_SYMBOL) {
+            throw new IllegalArgumentException("Unknown fixed symbol " + symbol);
+        }
+        return id;
+    }
+
+    private static int findPerfectMultiplier() {
+        for (int multiplier = 0x9E3779B1; ; multiplier += 2) {
+            Arrays.fill(fixedTable, 0);
+            boolean perfect = true;
+            for (int id = 0; id < fixedSymbols.length && perfect; id++) {
+                String symbol = fixedSymbols[id];
+                int slot = (hash(symbol, 0, symbol.length()) * multiplier) >>> (32 - FIXED_TABLE_BITS);
+                perfect = fixedTable[slot] == 0;
+                fixedTable[slot] = id + 1;
+            }
+            if (perfect) {
+                return multiplier;
+            }
+        }
+    }
+
+    private static int fixedSlot(int hash) {
+        return (hash * fixedMultiplier) >>> (32 - FIXED_TABLE_BITS);
+    }
+
+    private static int hash(CharSequence source, int start, int length) {
+        int hash = 0;
+        for (int index = start; index < start + length; index++) {
+            hash = 31 * hash + source.charAt(index);
+        }
+        return hash;
+    }
+
+    private static boolean matches(String name, CharSequence source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int offset = 0; offset < length; offset++) {
+            if (name.charAt(offset) != source.charAt(start + offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] concat(List<String> keywords, List<String> operators, List<String> separators) {
+        return Stream.of(keywords, operators, separators)
+            .flatMap(List::stream)
+            .toArray(String[]::new);
+    }
+
+    /**
+     * Open addressing table of identifier ids, slots hold id + 1 so that zero marks an empty slot
+     */
+    private static final class IdentifierSlots {
+
+        private final AtomicIntegerArray slots;
+        private final int mask;
+
+        IdentifierSlots(int capacity) {
+            slots = new AtomicIntegerArray(capacity);
+            mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int find(int hash, CharSequence source, int start, int length) {
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int id = slots.get(slot) - 1;
+                if (id == NO_SYMBOL) {
+                    return NO_SYMBOL;
+                }
+                // names are read after the slot, so the array already holds the name of the id
+                if (matches(names[id], source, start, length)) {
+                    return id;
+                }
+            }
+        }
+
+        void insert(int hash, int id) {
+            int slot = mix(hash) & mask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, id + 1);
+        }
+
+        IdentifierSlots resize(String[] names, int symbolCount) {
+            IdentifierSlots resized = new IdentifierSlots(capacity() * 2);
+            for (int id = fixedSymbols.length; id < symbolCount; id++) {
+                if (names[id] != null) {
+                    resized.insert(hash(names[id], 0, names[id].length()), id);
+                }
+            }
+            return resized;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
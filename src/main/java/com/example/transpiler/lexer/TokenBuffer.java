@@ -0,0 +1,275 @@
+package com.example.transpiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Token stream stored as parallel primitive arrays referencing the original source.
+ * No object is allocated per token, lexemes are materialized only on request.
+ */
+public class TokenBuffer {
+
+    private static final TokenType[] tokenTypes = TokenType.values();
+    private static final LiteralType[] literalTypes = LiteralType.values();
+    private static final byte NOT_A_LITERAL = -1;
+
+    private final CharSequence source;
+    private int[] kinds;
+    private int[] symbols;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private byte[] literals;
+    private int size;
+
+    public TokenBuffer(CharSequence source) {
+        this(source, initialCapacity(source.length()));
+    }
+
+    public TokenBuffer(CharSequence source, int capacity) {
+        this.source = source;
+        kinds = new int[capacity];
+        symbols = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        literals = new byte[capacity];
+    }
+
+    /**
+     * Builds a buffer from already materialized tokens, lexemes are laid out on one line separated by spaces
+     * @param tokens list of tokens
+     * @return buffer with the same token stream
+     */
+    public static TokenBuffer of(List<Token> tokens) {
+        StringBuilder builder = new StringBuilder();
+        for (Token token : tokens) {
+            builder.append(token.getLexeme()).append(' ');
+        }
+        TokenBuffer buffer = new TokenBuffer(builder.toString(), tokens.size() + 1);
+        int start = 0;
+        for (Token token : tokens) {
+            String lexeme = token.getLexeme();
+            int symbol = switch (token.getType()) {
+                case KEYWORD, OPERATOR, DECLARATION_SEPARATOR -> SymbolTable.lookupFixed(lexeme, 0, lexeme.length());
+                case IDENTIFIER -> SymbolTable.intern(lexeme);
+                case LITERAL -> SymbolTable.NO_SYMBOL;
+            };
+            if (token.getType() == TokenType.LITERAL) {
+                LiteralType literalType = lexeme.indexOf('.') == -1 ? LiteralType.INTEGER : LiteralType.REAL;
+                buffer.addLiteral(literalType, start, lexeme.length(), 1, start + 1);
+            } else {
+                buffer.add(token.getType(), symbol, start, lexeme.length(), 1, start + 1);
+            }
+            start += token.getLexeme().length() + 1;
+        }
+        return buffer;
+    }
+
+    /**
+     * @param length number of characters to lex
+     * @return capacity to start with, bounded so that large sources grow with their tokens instead of
+     *          preallocating arrays for the worst case
+     */
+    static int initialCapacity(int length) {
+        return Math.min(length / 8, 1 << 16) + 16;
+    }
+
+    void add(TokenType type, int symbol, int start, int length, int line, int column) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = type.ordinal();
+        symbols[size] = symbol;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        literals[size] = NOT_A_LITERAL;
+        size++;
+    }
+
+    void addLiteral(LiteralType literalType, int start, int length, int line, int column) {
+        add(TokenType.LITERAL, SymbolTable.NO_SYMBOL, start, length, line, column);
+        literals[size - 1] = (byte) literalType.ordinal();
+    }
+
+    /**
+     * Appends tokens of another buffer whose source has the same text at the shifted positions
+     * @param other buffer to copy from
+     * @param from index of the first copied token
+     * @param to index after the last copied token
+     * @param startShift added to every start offset
+     * @param lineShift added to every line
+     * @param columnShiftLine line of the other buffer whose tokens are moved horizontally
+     * @param columnShift added to columns of tokens on that line
+     */
+    void append(TokenBuffer other, int from, int to, int startShift, int lineShift, int columnShiftLine,
+                int columnShift) {
+        Objects.checkFromToIndex(from, to, other.size);
+        int count = to - from;
+        while (kinds.length < size + count) {
+            grow();
+        }
+        System.arraycopy(other.kinds, from, kinds, size, count);
+        System.arraycopy(other.symbols, from, symbols, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        System.arraycopy(other.literals, from, literals, size, count);
+        for (int index = from; index < to; index++, size++) {
+            starts[size] = other.starts[index] + startShift;
+            lines[size] = other.lines[index] + lineShift;
+            columns[size] = other.columns[index] + (other.lines[index] == columnShiftLine ? columnShift : 0);
+        }
+    }
+
+    /**
+     * @param index token index in both buffers
+     * @param other buffer to compare with
+     * @return true if the token has the same kind, symbol and position in both buffers
+     */
+    boolean sameToken(int index, TokenBuffer other) {
+        return kinds[index] == other.kinds[index] && symbols[index] == other.symbols[index]
+                && literals[index] == other.literals[index] && starts[index] == other.starts[index]
+                && lengths[index] == other.lengths[index] && lines[index] == other.lines[index]
+                && columns[index] == other.columns[index];
+    }
+
+    /**
+     * @param offset offset in the source
+     * @return index of the first token starting at or after the offset, size if there is none
+     */
+    int firstTokenFrom(int offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, kinds.length * 2);
+        kinds = Arrays.copyOf(kinds, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        literals = Arrays.copyOf(literals, capacity);
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int index) {
+        return tokenTypes[kinds[Objects.checkIndex(index, size)]];
+    }
+
+    /**
+     * @param index token index
+     * @return id from {@link SymbolTable} for keywords, operators, separators and identifiers,
+     *          {@link SymbolTable#NO_SYMBOL} for literals
+     */
+    public int symbol(int index) {
+        return symbols[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index token index
+     * @return INTEGER or REAL as classified by the lexer, null if the token is not a literal
+     */
+    public LiteralType literalType(int index) {
+        byte literal = literals[Objects.checkIndex(index, size)];
+        return literal == NOT_A_LITERAL ? null : literalTypes[literal];
+    }
+
+    public int start(int index) {
+        return starts[Objects.checkIndex(index, size)];
+    }
+
+    public int length(int index) {
+        return lengths[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index token index
+     * @return 1-based line of the first character of the token
+     */
+    public int line(int index) {
+        return lines[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index token index
+     * @return 1-based column of the first character of the token
+     */
+    public int column(int index) {
+        return columns[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @param index token index
+     * @return lexeme of the token, shared symbol name for everything except literals
+     */
+    public String lexeme(int index) {
+        int symbol = symbol(index);
+        if (symbol != SymbolTable.NO_SYMBOL) {
+            return SymbolTable.name(symbol);
+        }
+        return source.subSequence(starts[index], starts[index] + lengths[index]).toString();
+    }
+
+    /**
+     * Compares lexeme of the token without materializing it
+     * @param index token index
+     * @param expected expected lexeme
+     * @return true if lexeme of the token equals to expected one
+     */
+    public boolean lexemeEquals(int index, String expected) {
+        int start = start(index);
+        int length = lengths[index];
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int offset = 0; offset < length; offset++) {
+            if (source.charAt(start + offset) != expected.charAt(offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Token token(int index) {
+        return new Token(type(index), lexeme(index));
+    }
+
+    /**
+     * @return token stream as list of token objects
+     */
+    public List<Token> toTokens() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            tokens.add(token(index));
+        }
+        return tokens;
+    }
+
+    @Override
+    public String toString() {
+        return toTokens().toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.transpiler.lexer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Result of re-lexing an edit: tokens [firstChanged, firstChanged + removedCount) of the previous buffer
+ * were replaced by tokens [firstChanged, firstChanged + insertedCount) of the new one, all other tokens are equal
+ * up to shifted positions
+ */
+@Data
+@AllArgsConstructor
+public class TokenDelta {
+    private final TokenBuffer tokens;
+    private final int firstChanged;
+    private final int removedCount;
+    private final int insertedCount;
+}
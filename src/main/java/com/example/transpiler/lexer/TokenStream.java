@@ -0,0 +1,148 @@
+package com.example.transpiler.lexer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily lexes a character stream chunk by chunk.
+ * Only one chunk of source and the tokens lexed from it are held in memory,
+ * chunks are cut at whitespace or ';' so that no token spans two chunks.
+ */
+public class TokenStream implements Iterator<Token>, Closeable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+    public static final int DEFAULT_LOOKAHEAD = 16;
+
+    private final Reader reader;
+    private final int maxLookahead;
+    private final ArrayDeque<Token> pending = new ArrayDeque<>();
+    private char[] chunk;
+    private int filled;
+    private boolean endOfInput;
+
+    public TokenStream(Reader reader) {
+        this(reader, DEFAULT_CHUNK_SIZE, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * @param reader source of characters, closed together with the stream
+     * @param chunkSize number of characters read at once, grows only for words longer than a chunk
+     * @param maxLookahead number of tokens that can be inspected ahead with {@link #peek(int)}
+     */
+    public TokenStream(Reader reader, int chunkSize, int maxLookahead) {
+        this.reader = reader;
+        this.maxLookahead = maxLookahead;
+        chunk = new char[Math.max(1, chunkSize)];
+    }
+
+    @Override
+    public boolean hasNext() {
+        return fill(1);
+    }
+
+    @Override
+    public Token next() {
+        if (!fill(1)) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+
+    /**
+     * @param distance 0 for the next token, 1 for the one after it and so on, below the lookahead bound
+     * @return token at the distance without consuming it, null if the input ends before it
+     */
+    public Token peek(int distance) {
+        if (distance < 0 || distance >= maxLookahead) {
+            throw new IllegalArgumentException("Lookahead is limited to " + maxLookahead + " tokens");
+        }
+        if (!fill(distance + 1)) {
+            return null;
+        }
+        if (distance == 0) {
+            return pending.peek();
+        }
+        Iterator<Token> iterator = pending.iterator();
+        for (int skipped = 0; skipped < distance; skipped++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * @return sequential stream of remaining tokens
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+            false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean fill(int count) {
+        while (pending.size() < count && !(endOfInput && filled == 0)) {
+            lexNextChunk();
+        }
+        return pending.size() >= count;
+    }
+
+    private void lexNextChunk() {
+        readChunk();
+        int boundary = endOfInput ? filled : lastBoundary();
+        if (boundary == 0 && !endOfInput) {
+            // one word fills the whole chunk
+            chunk = Arrays.copyOf(chunk, chunk.length * 2);
+            return;
+        }
+        TokenBuffer tokens = Lexer.tokenize(CharBuffer.wrap(chunk, 0, boundary));
+        for (int index = 0; index < tokens.size(); index++) {
+            pending.add(tokens.token(index));
+        }
+        System.arraycopy(chunk, boundary, chunk, 0, filled - boundary);
+        filled -= boundary;
+    }
+
+    private void readChunk() {
+        try {
+            while (filled < chunk.length && !endOfInput) {
+                int read = reader.read(chunk, filled, chunk.length - filled);
+                if (read == -1) {
+                    endOfInput = true;
+                } else {
+                    filled += read;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int lastBoundary() {
+        for (int index = filled - 1; index >= 0; index--) {
+            if (Lexer.isTokenBoundary(chunk[index])) {
+                return index + 1;
+            }
+        }
+        return 0;
+    }
+}
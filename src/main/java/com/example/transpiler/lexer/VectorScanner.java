@@ -0,0 +1,183 @@
+package com.example.transpiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scanning path of the lexer that classifies a whole vector of source bytes at once.
+ * Whitespace runs and ends of words are found in bitmasks, the scalar lexer only classifies the words.
+ * Depends on the incubating jdk.incubator.vector module, so it is compiled only in the vector profile
+ * and {@link Lexer} loads it by name after checking the module.
+ */
+final class VectorScanner implements AsciiScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // nibble lookup: a byte belongs to a class if the table entry of its low nibble has the bit of its high nibble,
+    // the eight high nibbles of ASCII fit the eight bits of an entry and bytes above 0x7F match no bit
+    private static final ByteVector highNibbleBits = highNibbleBits();
+    private static final ByteVector boundaryTable = lowNibbleTable(false);
+    private static final ByteVector whitespaceTable = lowNibbleTable(true);
+
+    private static final byte BOUNDARY_FLAG = 1;
+    private static final byte WHITESPACE_FLAG = 2;
+    private static final byte NEWLINE_FLAG = 4;
+
+    /**
+     * @return true if the preferred vector holds 16 to 64 bytes, the range the lookup tables and masks need
+     */
+    @Override
+    public boolean isSupported() {
+        return LANES >= 16 && LANES <= Long.SIZE;
+    }
+
+    @Override
+    public TokenBuffer tokenize(AsciiSource source) throws InvalidTokenException {
+        TokenBuffer tokens = new TokenBuffer(source);
+        Block block = new Block(source);
+        int length = source.length();
+        int line = 1;
+        int lineStart = 0;
+        int index = 0;
+        while (index < length) {
+            if (index < block.start || index >= block.start + LANES) {
+                block.load(index);
+            }
+            int lane = index - block.start;
+            if (isSet(block.whitespace, lane)) {
+                int stop = Math.min(nextSet(~block.whitespace, lane), LANES);
+                long newlines = block.newlines & (-1L << lane) & below(stop);
+                if (newlines != 0) {
+                    line += Long.bitCount(newlines);
+                    lineStart = block.start + Long.SIZE - Long.numberOfLeadingZeros(newlines);
+                }
+                index = Math.min(block.start + stop, length);
+            } else if (isSet(block.boundaries, lane)) {
+                Lexer.addCharacter(tokens, source.charAt(index), index, line, index - lineStart + 1);
+                index++;
+            } else {
+                int end = wordEnd(block, index, length);
+                if (end < length && source.charAt(end) == '.') {
+                    // the '.' may continue a real literal, the scalar scanner decides
+                    end = Lexer.scanWord(source, index, length);
+                }
+                Lexer.addWord(tokens, source, index, end, line, index - lineStart + 1);
+                index = end;
+            }
+        }
+        return tokens;
+    }
+
+    private static int wordEnd(Block block, int index, int length) {
+        int lane = index - block.start + 1;
+        while (true) {
+            int boundary = nextSet(block.boundaries, lane);
+            if (boundary < LANES) {
+                return block.start + boundary;
+            }
+            if (block.start + LANES >= length) {
+                return length;
+            }
+            block.load(block.start + LANES);
+            lane = 0;
+        }
+    }
+
+    private static boolean isSet(long mask, int bit) {
+        return (mask >>> bit & 1) != 0;
+    }
+
+    /**
+     * @return index of the lowest set bit at or above the given one, 64 if there is none
+     */
+    private static int nextSet(long mask, int from) {
+        return from >= Long.SIZE ? Long.SIZE : Long.numberOfTrailingZeros(mask & (-1L << from));
+    }
+
+    private static long below(int bit) {
+        return bit >= Long.SIZE ? -1L : (1L << bit) - 1;
+    }
+
+    private static ByteVector highNibbleBits() {
+        byte[] table = new byte[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            int nibble = lane % 16;
+            table[lane] = nibble < 8 ? (byte) (1 << nibble) : 0;
+        }
+        return ByteVector.fromArray(SPECIES, table, 0);
+    }
+
+    private static ByteVector lowNibbleTable(boolean whitespaceOnly) {
+        byte[] table = new byte[LANES];
+        for (char symbol = 0; symbol < 128; symbol++) {
+            byte characterClass = Lexer.classOf(symbol);
+            if (whitespaceOnly ? characterClass == Lexer.WHITESPACE : characterClass != Lexer.WORD) {
+                for (int lane = symbol & 0xF; lane < LANES; lane += 16) {
+                    table[lane] |= (byte) (1 << (symbol >> 4));
+                }
+            }
+        }
+        return ByteVector.fromArray(SPECIES, table, 0);
+    }
+
+    /**
+     * Bitmasks of one vector of the source, bit i describes the byte at start + i
+     */
+    private static final class Block {
+
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+        private int start = Integer.MIN_VALUE / 2;
+        private long boundaries;
+        private long whitespace;
+        private long newlines;
+        private final long[] flagWords = new long[LANES / Long.BYTES];
+
+        Block(AsciiSource source) {
+            bytes = source.bytes();
+            offset = source.offset();
+            length = source.length();
+        }
+
+        void load(int start) {
+            this.start = start;
+            ByteVector vector = start + LANES <= length
+                    ? ByteVector.fromByteBuffer(SPECIES, bytes, offset + start, ByteOrder.nativeOrder())
+                    : ByteVector.fromByteBuffer(SPECIES, bytes, offset + start, ByteOrder.nativeOrder(),
+                            SPECIES.indexInRange(start, length));
+            ByteVector lowNibbles = vector.and((byte) 0x0F);
+            ByteVector highBits = vector.lanewise(VectorOperators.LSHR, 4).and((byte) 0x0F).selectFrom(highNibbleBits);
+            // bytes past the end are loaded as zero, which is a word character
+            ByteVector zero = ByteVector.zero(SPECIES);
+            ByteVector flags = zero.blend(BOUNDARY_FLAG,
+                            lowNibbles.selectFrom(boundaryTable).and(highBits).compare(VectorOperators.NE, (byte) 0))
+                    .or(zero.blend(WHITESPACE_FLAG,
+                            lowNibbles.selectFrom(whitespaceTable).and(highBits).compare(VectorOperators.NE, (byte) 0)))
+                    .or(zero.blend(NEWLINE_FLAG, vector.compare(VectorOperators.EQ, (byte) '\n')));
+            // VectorMask.toLong is not intrinsic on every JDK, storing the flags and packing them is
+            flags.reinterpretAsLongs().intoArray(flagWords, 0);
+            boundaries = 0;
+            whitespace = 0;
+            newlines = 0;
+            for (int word = 0; word < flagWords.length; word++) {
+                long flagWord = flagWords[word];
+                int shift = word * Long.BYTES;
+                boundaries |= pack(flagWord) << shift;
+                whitespace |= pack(flagWord >>> 1) << shift;
+                newlines |= pack(flagWord >>> 2) << shift;
+            }
+        }
+
+        /**
+         * @return lowest bit of each byte of the word gathered into the lowest byte, first byte in the lowest bit
+         */
+        private static long pack(long flagWord) {
+            return ((flagWord & 0x0101010101010101L) * 0x0102040810204080L) >>> 56;
+        }
+    }
+}
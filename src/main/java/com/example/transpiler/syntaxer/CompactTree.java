@@ -0,0 +1,247 @@
+package com.example.transpiler.syntaxer;
+
+import com.example.transpiler.lexer.LiteralType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Syntax tree stored as parallel primitive arrays indexed by node, nodes are numbered in document order
+ * and the root PROGRAM is node 0. Values are ids into a table of the distinct values of the tree.
+ * Takes a few bytes per node instead of a {@link Node}, its child list and array, immutable once built.
+ * Meant for tools that only read the structure of programs, the type checker and the code generators work on
+ * {@link Tree} and a compact tree is converted with {@link #toTree()} to feed them.
+ */
+public class CompactTree {
+
+    public static final int NONE = -1;
+    static final byte NOT_A_LITERAL = -1;
+
+    private static final FormalGrammar[] kinds = FormalGrammar.values();
+    private static final LiteralType[] literalTypes = LiteralType.values();
+
+    private final byte[] nodeKinds;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] parents;
+    private final int[] valueIds;
+    private final byte[] nodeLiteralTypes;
+    private final String[] values;
+
+    CompactTree(byte[] nodeKinds, int[] firstChildren, int[] nextSiblings, int[] parents, int[] valueIds,
+                byte[] nodeLiteralTypes, String[] values) {
+        this.nodeKinds = nodeKinds;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.parents = parents;
+        this.valueIds = valueIds;
+        this.nodeLiteralTypes = nodeLiteralTypes;
+        this.values = values;
+    }
+
+    /**
+     * @param tree tree of nodes
+     * @return compact copy of the tree
+     */
+    public static CompactTree of(Tree tree) {
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        Node root = tree.getRoot();
+        TreeWalker.walk(root, new NodeVisitor() {
+            @Override
+            public boolean enter(Node node) {
+                if (node == root) {
+                    return true;
+                }
+                if (node.getLiteralType() != null) {
+                    builder.literal(node.getValue(), node.getLiteralType());
+                    return false;
+                }
+                if (node.getChildNodes().isEmpty()) {
+                    builder.leaf(node.getType(), node.getValue());
+                    return false;
+                }
+                builder.enterRule(node.getType(), node.getValue());
+                return true;
+            }
+
+            @Override
+            public void exit(Node node) {
+                if (node != root) {
+                    builder.exitRule(node.getType());
+                }
+            }
+        });
+        return builder.getTree();
+    }
+
+    public int size() {
+        return nodeKinds.length;
+    }
+
+    public FormalGrammar kind(int node) {
+        return kinds[nodeKinds[node]];
+    }
+
+    /**
+     * @param node node index
+     * @return value of the node, null for rules without one
+     */
+    public String value(int node) {
+        int valueId = valueIds[node];
+        return valueId == NONE ? null : values[valueId];
+    }
+
+    /**
+     * @param node node index
+     * @return kind of a literal PRIMARY, null for other nodes
+     */
+    public LiteralType literalType(int node) {
+        byte literalType = nodeLiteralTypes[node];
+        return literalType == NOT_A_LITERAL ? null : literalTypes[literalType];
+    }
+
+    /**
+     * @param node node index
+     * @return index into {@link #values()}, the same for equal values, NONE if the node has no value
+     */
+    public int valueId(int node) {
+        return valueIds[node];
+    }
+
+    /**
+     * @return distinct values of the tree indexed by value id
+     */
+    public List<String> values() {
+        return List.of(values);
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @return cursor at the root
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return index of the first child of the given kind, NONE if there is none
+     */
+    public int firstChild(int node, FormalGrammar kind) {
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            if (kinds[nodeKinds[child]] == kind) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param kind node kind
+     * @return indexes of nodes of the kind in document order
+     */
+    public List<Integer> nodesOfKind(FormalGrammar kind) {
+        List<Integer> nodes = new ArrayList<>();
+        byte ordinal = (byte) kind.ordinal();
+        for (int node = 0; node < nodeKinds.length; node++) {
+            if (nodeKinds[node] == ordinal) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return tree of nodes for code working on {@link Node}
+     */
+    public Tree toTree() {
+        Tree tree = new Tree();
+        for (int child = firstChildren[0]; child != NONE; child = nextSiblings[child]) {
+            tree.getRoot().addChild(toNode(child));
+        }
+        return tree;
+    }
+
+    /**
+     * @param node node index
+     * @return subtree of the node as nodes
+     */
+    public Node toNode(int node) {
+        // nodes are in document order, so the subtree is the run of nodes after it whose parents are inside of it
+        List<Node> copies = new ArrayList<>();
+        copies.add(copy(node));
+        for (int descendant = node + 1; descendant < nodeKinds.length && parents[descendant] >= node; descendant++) {
+            Node copy = copy(descendant);
+            copies.get(parents[descendant] - node).addChild(copy);
+            copies.add(copy);
+        }
+        return copies.get(0);
+    }
+
+    private Node copy(int node) {
+        LiteralType literalType = literalType(node);
+        return literalType == null ? new Node(kind(node), value(node)) : Node.literal(value(node), literalType);
+    }
+
+    /**
+     * Position in the tree moving between parents, children and siblings without allocating
+     */
+    public class Cursor {
+
+        private int node;
+
+        public int node() {
+            return node;
+        }
+
+        public FormalGrammar kind() {
+            return CompactTree.this.kind(node);
+        }
+
+        public String value() {
+            return CompactTree.this.value(node);
+        }
+
+        public void moveTo(int node) {
+            this.node = node;
+        }
+
+        /**
+         * @return false and stays in place if the node has no children
+         */
+        public boolean toFirstChild() {
+            return move(firstChildren[node]);
+        }
+
+        /**
+         * @return false and stays in place if the node is the last child
+         */
+        public boolean toNextSibling() {
+            return move(nextSiblings[node]);
+        }
+
+        /**
+         * @return false and stays in place at the root
+         */
+        public boolean toParent() {
+            return move(parents[node]);
+        }
+
+        private boolean move(int target) {
+            if (target == NONE) {
+                return false;
+            }
+            node = target;
+            return true;
+        }
+    }
+}
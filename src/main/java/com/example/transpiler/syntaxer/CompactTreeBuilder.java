@@ -0,0 +1,136 @@
+package com.example.transpiler.syntaxer;
+
+import com.example.transpiler.lexer.LiteralType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener building a {@link CompactTree} straight from the parser, no {@link Node} is created
+ */
+public class CompactTreeBuilder implements ParseListener {
+
+    private byte[] kinds = new byte[64];
+    private int[] firstChildren = new int[64];
+    private int[] nextSiblings = new int[64];
+    private int[] parents = new int[64];
+    private int[] valueIds = new int[64];
+    // ordinal of the kind of literals, NOT_A_LITERAL for other nodes
+    private byte[] literalTypes = new byte[64];
+    // last child of every node, only needed to link siblings while building
+    private int[] lastChildren = new int[64];
+    private int size;
+    private final Map<String, Integer> valueIdsByValue = new HashMap<>();
+    private String[] values = new String[16];
+    // innermost node of rules entered and not exited yet
+    private int current;
+
+    public CompactTreeBuilder() {
+        add(FormalGrammar.PROGRAM, null);
+        current = 0;
+    }
+
+    @Override
+    public void enterRule(FormalGrammar rule, String value) {
+        current = add(rule, value);
+    }
+
+    @Override
+    public void exitRule(FormalGrammar rule) {
+        current = parents[current];
+    }
+
+    @Override
+    public void leaf(FormalGrammar type, String value) {
+        add(type, value);
+    }
+
+    @Override
+    public void literal(String value, LiteralType literalType) {
+        literalTypes[add(FormalGrammar.PRIMARY, value)] = (byte) literalType.ordinal();
+    }
+
+    @Override
+    public void abandonRules(int count) {
+        if (count == 0) {
+            return;
+        }
+        int abandoned = current;
+        for (int rule = 1; rule < count; rule++) {
+            abandoned = parents[abandoned];
+        }
+        current = parents[abandoned];
+        // the abandoned node is the last child of its parent and everything after it is inside of it
+        if (firstChildren[current] == abandoned) {
+            firstChildren[current] = CompactTree.NONE;
+            lastChildren[current] = CompactTree.NONE;
+        } else {
+            int previous = firstChildren[current];
+            while (nextSiblings[previous] != abandoned) {
+                previous = nextSiblings[previous];
+            }
+            nextSiblings[previous] = CompactTree.NONE;
+            lastChildren[current] = previous;
+        }
+        size = abandoned;
+    }
+
+    /**
+     * @return tree of the nodes added so far, arrays are trimmed to its size
+     */
+    public CompactTree getTree() {
+        return new CompactTree(Arrays.copyOf(kinds, size), Arrays.copyOf(firstChildren, size),
+            Arrays.copyOf(nextSiblings, size), Arrays.copyOf(parents, size), Arrays.copyOf(valueIds, size),
+            Arrays.copyOf(literalTypes, size), Arrays.copyOf(values, valueIdsByValue.size()));
+    }
+
+    private int add(FormalGrammar kind, String value) {
+        if (size == kinds.length) {
+            grow();
+        }
+        int node = size++;
+        kinds[node] = (byte) kind.ordinal();
+        firstChildren[node] = CompactTree.NONE;
+        nextSiblings[node] = CompactTree.NONE;
+        lastChildren[node] = CompactTree.NONE;
+        valueIds[node] = value == null ? CompactTree.NONE : valueId(value);
+        literalTypes[node] = CompactTree.NOT_A_LITERAL;
+        if (node == 0) {
+            parents[node] = CompactTree.NONE;
+            return node;
+        }
+        parents[node] = current;
+        if (lastChildren[current] == CompactTree.NONE) {
+            firstChildren[current] = node;
+        } else {
+            nextSiblings[lastChildren[current]] = node;
+        }
+        lastChildren[current] = node;
+        return node;
+    }
+
+    private int valueId(String value) {
+        Integer valueId = valueIdsByValue.get(value);
+        if (valueId != null) {
+            return valueId;
+        }
+        int id = valueIdsByValue.size();
+        if (id == values.length) {
+            values = Arrays.copyOf(values, id * 2);
+        }
+        values[id] = value;
+        valueIdsByValue.put(value, id);
+        return id;
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        valueIds = Arrays.copyOf(valueIds, capacity);
+        literalTypes = Arrays.copyOf(literalTypes, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+    }
+}
@@ -1,340 +1,918 @@
 package com.example.transpiler.syntaxer;
 
+import com.example.transpiler.lexer.LiteralType;
+import com.example.transpiler.lexer.SymbolTable;
 import com.example.transpiler.lexer.Token;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.lexer.TokenDelta;
 import com.example.transpiler.lexer.TokenType;
+import com.example.transpiler.util.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import lombok.experimental.UtilityClass;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
-@UtilityClass
+/**
+ * Recursive descent parser of one token stream.
+ * Rules are reported to a {@link ParseListener}, a {@link TreeBuilder} unless the caller asks for events only.
+ * Every instance owns its position and listener, so different files can be parsed concurrently.
+ */
 public class GrammarChecker {
 
-    private List<Token> tokens;
-    private Tree tree;
+    // precedence of binary operations, higher binds tighter
+    private static final int COMPARISON = 1;
+    private static final int ADDITIVE = 2;
+    private static final int MULTIPLICATIVE = 3;
+
+    // classes with fewer members are not worth splitting into tasks
+    private static final int PARALLEL_MIN_MEMBERS = 16;
+
+    private final TokenBuffer tokens;
+    // events of the operand being parsed, MATH_EXPRESSION is known to start only after its left operand
+    private final EventRecorder recorder = new EventRecorder();
+    private ParseListener listener;
+    // the listener if it builds a tree, needed to record member spans and attach members parsed in parallel
+    private TreeBuilder builder;
+    // rules entered and not exited yet
+    private int openRules;
     private int currentIndex = 0;
+    private boolean parsed;
+    // pool parsing members of classes, null for sequential parsing
+    private ForkJoinPool pool;
+    // errors collected while recovering, null if parsing stops at the first error
+    private List<SyntaxError> errors;
+    // counters of the parse, null if they are not collected
+    private ParseStatistics statistics;
 
-    public Tree checkGrammar(List<Token> tokens) {
-        GrammarChecker.tokens = tokens;
-        tree = new Tree();
-        currentIndex = 0;
-        while (true) {
+    public GrammarChecker(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    private GrammarChecker(TokenBuffer tokens, int currentIndex, int openRules, ParseStatistics statistics) {
+        this.tokens = tokens;
+        this.currentIndex = currentIndex;
+        this.openRules = openRules;
+        this.statistics = statistics;
+    }
+
+    public GrammarChecker(List<Token> tokens) {
+        this(TokenBuffer.of(tokens));
+    }
+
+    public static Tree checkGrammar(List<Token> tokens) {
+        return new GrammarChecker(tokens).parse();
+    }
+
+    public static Tree checkGrammar(TokenBuffer tokens) {
+        return new GrammarChecker(tokens).parse();
+    }
+
+    /**
+     * Parses without building nodes, the program is only reported to the listener
+     * @param tokens program tokens
+     * @param listener receiver of the rules of the program
+     */
+    public static void checkGrammar(TokenBuffer tokens, ParseListener listener) {
+        new GrammarChecker(tokens).parse(listener);
+    }
+
+    /**
+     * Parses straight into primitive arrays without creating nodes
+     * @param tokens program tokens
+     * @return compact syntax tree of the program
+     */
+    public static CompactTree checkGrammarCompact(TokenBuffer tokens) {
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        new GrammarChecker(tokens).parse(builder);
+        return builder.getTree();
+    }
+
+    /**
+     * Same as {@link #checkGrammar(TokenBuffer)} but parses members of large classes in parallel on the common pool
+     * @param tokens program tokens, read concurrently
+     * @return syntax tree of the program
+     */
+    public static Tree checkGrammarParallel(TokenBuffer tokens) {
+        return checkGrammarParallel(tokens, ForkJoinPool.commonPool());
+    }
+
+    public static Tree checkGrammarParallel(TokenBuffer tokens, ForkJoinPool pool) {
+        return new GrammarChecker(tokens).parse(pool);
+    }
+
+    /**
+     * Parses the whole program even if it has syntax errors
+     * @param tokens program tokens
+     * @return tree of classes and members without errors and all syntax errors
+     */
+    public static ParseResult checkGrammarRecovering(TokenBuffer tokens) {
+        return new GrammarChecker(tokens).parseRecovering();
+    }
+
+    /**
+     * Counts attempts, failures and rewinds of every rule of the next parse
+     * @param statistics counters to add to, read them after parsing
+     */
+    public void setStatistics(ParseStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Can be called once per instance
+     * @param pool pool parsing members of large classes as separate tasks
+     * @return syntax tree of the program, the same as of sequential parsing
+     */
+    public Tree parse(ForkJoinPool pool) {
+        this.pool = pool;
+        return parse();
+    }
+
+    /**
+     * Can be called once per instance
+     * @return syntax tree of the program
+     */
+    public Tree parse() {
+        TreeBuilder treeBuilder = new TreeBuilder();
+        parse(treeBuilder);
+        return treeBuilder.getTree();
+    }
+
+    /**
+     * Can be called once per instance
+     * @param listener receiver of the rules of the program
+     */
+    public void parse(ParseListener listener) {
+        startParsing(listener);
+        while (currentIndex < tokens.size()) {
             int validIndex = currentIndex;
             try {
-                specifyClassDeclaration(tree.getRoot());
+                specifyClassDeclaration();
             } catch (Exception e) {
                 if (currentIndex < tokens.size()) {
-                    throw new CompilationException();
+                    if (statistics != null) {
+                        statistics.fail(statistics.openRules());
+                    }
+                    throw e instanceof CompilationException compilation ? compilation : error("class declaration");
                 }
-                currentIndex = validIndex;
-                tree.getRoot().deleteLastChild();
+                rewind(FormalGrammar.CLASS_DECLARATION, validIndex);
+                abandonRules(0);
                 break;
             }
         }
-        return tree;
     }
 
-    private void specifyClassDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.CLASS_DECLARATION, parentNode);
-        verifyToken("class");
-        specifyClassName(node);
-        if (lexeme().equals("extends")) {
-            verifyToken("extends");
-            specifyClassName(node);
-        }
-        verifyToken("is");
-        while (true) {
-            int validIndex = currentIndex;
+    /**
+     * Panic mode parsing, can be called once per instance.
+     * A broken member is reported and dropped, parsing resumes at the next member keyword, "end" or after ';'
+     * outside of is/while/if ... end blocks. A broken class header is reported and parsing resumes at the next class.
+     * @return tree of classes and members without errors and all syntax errors
+     */
+    public ParseResult parseRecovering() {
+        TreeBuilder treeBuilder = new TreeBuilder();
+        List<SyntaxError> syntaxErrors = parseRecovering(treeBuilder);
+        return new ParseResult(treeBuilder.getTree(), syntaxErrors);
+    }
+
+    /**
+     * Same as {@link #parseRecovering()} without building nodes, broken rules are abandoned
+     * @param listener receiver of the rules of the program
+     * @return all syntax errors
+     */
+    public List<SyntaxError> parseRecovering(ParseListener listener) {
+        startParsing(listener);
+        errors = new ArrayList<>();
+        while (currentIndex < tokens.size()) {
+            if (!isSymbol(SymbolTable.CLASS)) {
+                report(error("class declaration"));
+                skipToClass();
+                continue;
+            }
+            enter(FormalGrammar.CLASS_DECLARATION);
             try {
-                specifyMemberDeclaration(node);
-            } catch (Exception e) {
-                currentIndex = validIndex;
-                node.deleteLastChild();
-                break;
+                specifyClassHeader();
+            } catch (RuntimeException e) {
+                report(e);
+                abandonRules(0);
+                skipToClass();
+                continue;
+            }
+            specifyMembersRecovering();
+            if (currentIndex < tokens.size() && isSymbol(SymbolTable.END)) {
+                verifyToken(SymbolTable.END);
+            } else {
+                report(error("'end'"));
+                skipToClass();
             }
+            exit(FormalGrammar.CLASS_DECLARATION);
         }
-        verifyToken("end");
+        return errors;
     }
 
-    public void specifyClassName(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.CLASS_NAME, parentNode);
-        specifyIdentifier(node);
-        if (lexeme().equals("[")) {
-            verifyToken("[");
-            specifyClassName(node);
-            verifyToken("]");
+    /**
+     * Reparses only the members touched by an edit, other member subtrees are shared with the previous tree.
+     * Parsing restarts at the last member starting before the edit and goes on member by member
+     * until it ends after the edit where a member of the previous tree ended, the rest of the tokens is unchanged
+     * and so is the rest of the tree. Everything is parsed again if the edit is outside of members.
+     * @param previous tree parsed without errors from the tokens before the edit
+     * @param delta tokens after the edit and the changed range, as returned by Lexer.relex
+     * @return syntax tree of the new tokens, equal to parsing them from scratch
+     */
+    public static Tree reparse(Tree previous, TokenDelta delta) {
+        if (delta.getRemovedCount() == 0 && delta.getInsertedCount() == 0) {
+            return previous;
         }
+        Tree tree = new GrammarChecker(delta.getTokens()).reparse(previous, delta.getFirstChanged(),
+            delta.getRemovedCount(), delta.getInsertedCount());
+        return tree != null ? tree : checkGrammar(delta.getTokens());
     }
 
-    public void specifyIdentifier(Node parentNode) {
-        tree.addNode(FormalGrammar.IDENTIFIER, lexeme(), parentNode);
-        if (tokenType() != TokenType.IDENTIFIER) {
-            throw new CompilationException();
-        } else {
-            incrementIndex();
+    /**
+     * @return new tree, null if the edited members can not be reparsed alone
+     */
+    private Tree reparse(Tree previous, int changeStart, int removedCount, int insertedCount) {
+        startParsing(new TreeBuilder());
+        Tree tree = builder.getTree();
+        List<Node> classes = previous.getRoot().getChildNodes();
+        for (int index = classes.size() - 1; index >= 0; index--) {
+            Node classNode = classes.get(index);
+            if (lastMemberBefore(classNode, previous, changeStart) == -1) {
+                continue;
+            }
+            Node reparsed = reparseClass(classNode, previous, changeStart, removedCount, insertedCount);
+            if (reparsed == null) {
+                return null;
+            }
+            List<Node> newClasses = new ArrayList<>(classes);
+            newClasses.set(index, reparsed);
+            // members of the reparse attempts are collected under the root
+            tree.getRoot().getChildNodes().clear();
+            tree.getRoot().getChildNodes().addAll(newClasses);
+            tree.setClassName(previous.getClassName());
+            newClasses.forEach(newClass -> copySpans(newClass, previous, changeStart, insertedCount - removedCount));
+            return tree;
         }
+        return null;
     }
 
-    public void specifyMemberDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.MEMBER_DECLARATION, parentNode);
-        int validIndex = currentIndex;
-        try {
-            specifyVariableDeclaration(node);
-        } catch (CompilationException e) {
-            currentIndex = validIndex;
-            node.deleteLastChild();
+    /**
+     * @return copy of the class declaration with the edited members reparsed, null if they can not be reparsed alone
+     */
+    private Node reparseClass(Node classNode, Tree previous, int changeStart, int removedCount, int insertedCount) {
+        List<Node> children = classNode.getChildNodes();
+        int first = lastMemberBefore(classNode, previous, changeStart);
+        if (first == -1) {
+            return null;
+        }
+        int shift = insertedCount - removedCount;
+        Node member = children.get(first);
+        Pair<Integer, Integer> span = previous.getMemberSpans().get(member);
+        Node declaration = member.getChildNodes().get(0);
+        if (declaration.getType() == FormalGrammar.CLASS_DECLARATION && changeStart + removedCount < span.getSecond()) {
+            Node nested = reparseClass(declaration, previous, changeStart, removedCount, insertedCount);
+            if (nested != null) {
+                Node memberCopy = new Node(FormalGrammar.MEMBER_DECLARATION);
+                memberCopy.addChild(nested);
+                builder.getTree().getMemberSpans().put(memberCopy, new Pair<>(span.getFirst(), span.getSecond() + shift));
+                return copyWithMembers(classNode, first, first + 1, List.of(memberCopy));
+            }
+        }
+        rewind(FormalGrammar.CLASS_DECLARATION, span.getFirst());
+        List<Node> reparsed = builder.current().getChildNodes();
+        reparsed.clear();
+        int last = first;
+        while (currentIndex < tokens.size() && isMemberStart()) {
             try {
-                specifyMethodDeclaration(node);
-            } catch (CompilationException exception) {
-                currentIndex = validIndex;
-                node.deleteLastChild();
-                try {
-                    specifyConstructorDeclaration(node);
-                } catch (CompilationException exception1) {
-                    currentIndex = validIndex;
-                    node.deleteLastChild();
-                    try {
-                        specifyNestedClassDeclaration(node);
-                    } catch (CompilationException exception2) {
-                        currentIndex = validIndex;
-                        node.deleteLastChild();
-                        specifyFunctionDeclaration(node);
-                    }
+                specifyMemberDeclaration();
+            } catch (RuntimeException e) {
+                abandonRules(0);
+                return null;
+            }
+            if (currentIndex < changeStart + insertedCount) {
+                continue;
+            }
+            // after the edit tokens are the same as before, so a member ending where one ended before
+            // is followed by the same members
+            int previousEnd = currentIndex - shift;
+            while (last < children.size() && previous.getMemberSpans().get(children.get(last)).getSecond() < previousEnd) {
+                last++;
+            }
+            if (last == children.size()) {
+                return null;
+            }
+            if (previous.getMemberSpans().get(children.get(last)).getSecond() == previousEnd) {
+                return copyWithMembers(classNode, first, last + 1, new ArrayList<>(reparsed));
+            }
+        }
+        return null;
+    }
 
-                }
+    /**
+     * @return index of the last member of the class starting before the index, -1 if there is none
+     */
+    private int lastMemberBefore(Node classNode, Tree previous, int index) {
+        List<Node> children = classNode.getChildNodes();
+        int found = -1;
+        for (int child = 0; child < children.size(); child++) {
+            Pair<Integer, Integer> span = previous.getMemberSpans().get(children.get(child));
+            if (span != null && span.getFirst() < index) {
+                found = child;
+            }
+        }
+        return found;
+    }
+
+    private Node copyWithMembers(Node classNode, int from, int to, List<Node> members) {
+        List<Node> children = classNode.getChildNodes();
+        List<Node> copy = new ArrayList<>(children.size() - (to - from) + members.size());
+        copy.addAll(children.subList(0, from));
+        copy.addAll(members);
+        copy.addAll(children.subList(to, children.size()));
+        return new Node(classNode.getType(), classNode.getValue(), copy);
+    }
+
+    /**
+     * Moves spans of members shared with the previous tree, members after the edit are shifted
+     */
+    private void copySpans(Node classNode, Tree previous, int changeStart, int shift) {
+        Tree tree = builder.getTree();
+        for (Node child : classNode.getChildNodes()) {
+            if (child.getType() != FormalGrammar.MEMBER_DECLARATION) {
+                continue;
+            }
+            Pair<Integer, Integer> span = previous.getMemberSpans().get(child);
+            if (span != null && !tree.getMemberSpans().containsKey(child)) {
+                int memberShift = span.getFirst() >= changeStart ? shift : 0;
+                tree.getMemberSpans().put(child, new Pair<>(span.getFirst() + memberShift, span.getSecond() + memberShift));
+            }
+            Node declaration = child.getChildNodes().get(0);
+            if (declaration.getType() == FormalGrammar.CLASS_DECLARATION) {
+                copySpans(declaration, previous, changeStart, shift);
             }
         }
     }
 
-    public void specifyFunctionDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.FUNCTION_DECLARATION, parentNode);
-        verifyToken("function");
-        verifyToken("<");
-        specifyIdentifier(node);
-        verifyToken(",");
-        specifyIdentifier(node);
-        verifyToken(">");
-        specifyIdentifier(node);
-        verifyToken(":");
-        verifyToken("=");
-        specifyIdentifier(node);
-        verifyToken("-");
-        verifyToken(">");
-        specifyExpression(node);
+    private void startParsing(ParseListener listener) {
+        if (parsed) {
+            throw new IllegalStateException("Tokens are already parsed");
+        }
+        parsed = true;
+        this.listener = listener;
+        builder = listener instanceof TreeBuilder treeBuilder ? treeBuilder : null;
     }
 
-    public void specifyNestedClassDeclaration(Node parentNode){
-        specifyClassDeclaration(parentNode);
+    private void enter(FormalGrammar rule) {
+        enter(rule, null);
     }
 
-    public void specifyVariableDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.VARIABLE_DECLARATION, parentNode);
-        verifyToken("var");
-        specifyIdentifier(node);
-        verifyToken(":");
-        specifyExpression(node);
+    private void enter(FormalGrammar rule, String value) {
+        listener.enterRule(rule, value);
+        opened(rule);
+    }
+
+    private void opened(FormalGrammar rule) {
+        openRules++;
+        if (statistics != null) {
+            statistics.enter(rule, openRules);
+        }
     }
 
-    public void specifyMethodDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.METHOD_DECLARATION, parentNode);
-        verifyToken("method");
-        specifyIdentifier(node);
-        if (lexeme().equals("(")) {
-            specifyParameters(node);
+    private void exit(FormalGrammar rule) {
+        listener.exitRule(rule);
+        openRules--;
+        if (statistics != null) {
+            statistics.exit();
         }
-        if (lexeme().equals(":")) {
-            verifyToken(":");
-            specifyIdentifier(node);
+    }
+
+    private void leaf(FormalGrammar type, String value) {
+        listener.leaf(type, value);
+    }
+
+    /**
+     * Drops the rules entered after the listener had the given number of open rules
+     * @param depth number of open rules to keep
+     */
+    private void abandonRules(int depth) {
+        listener.abandonRules(openRules - depth);
+        if (statistics != null) {
+            statistics.abandon(openRules - depth);
         }
-        verifyToken("is");
-        specifyBody(node);
-        verifyToken("end");
+        openRules = depth;
     }
 
-    public void specifyParameters(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.PARAMETERS, parentNode);
-        verifyToken("(");
-        specifyParameterDeclaration(node);
-        while (lexeme().equals(",")) {
-            verifyToken(",");
-            specifyParameterDeclaration(node);
+    /**
+     * Moves to a token, counting the tokens parsed again if it is before the current one
+     * @param rule rule that failed after the token
+     * @param index index of the token
+     */
+    private void rewind(FormalGrammar rule, int index) {
+        if (statistics != null && index < currentIndex) {
+            statistics.rewind(rule, currentIndex - index);
         }
-        verifyToken(")");
+        currentIndex = index;
     }
 
-    public void specifyParameterDeclaration(Node parentNode) {
-        if (lexeme().equals(")")) {
+    private void specifyClassDeclaration() {
+        enter(FormalGrammar.CLASS_DECLARATION);
+        specifyClassHeader();
+        if (errors != null) {
+            specifyMembersRecovering();
+            verifyToken(SymbolTable.END);
+            exit(FormalGrammar.CLASS_DECLARATION);
             return;
         }
-        Node node = tree.addNode(FormalGrammar.PARAMETER_DECLARATION, parentNode);
-        specifyIdentifier(node);
-        verifyToken(":");
-        specifyClassName(node);
+        if (pool != null && builder != null && specifyMembersInParallel()) {
+            verifyToken(SymbolTable.END);
+            exit(FormalGrammar.CLASS_DECLARATION);
+            return;
+        }
+        while (isMemberStart()) {
+            int validIndex = currentIndex;
+            try {
+                specifyMemberDeclaration();
+            } catch (RuntimeException e) {
+                CompilationException error = e instanceof CompilationException compilation ? compilation : error("member");
+                // the top level treats failures at the end of input as the end of the program
+                rewind(FormalGrammar.MEMBER_DECLARATION, validIndex);
+                throw error;
+            }
+        }
+        verifyToken(SymbolTable.END);
+        exit(FormalGrammar.CLASS_DECLARATION);
     }
 
-    private void specifyBody(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.BODY, parentNode);
-        while (true) {
-            int validState = currentIndex;
-            try {
-                specifyVariableDeclaration(node);
-            } catch (Exception exception) {
-                currentIndex = validState;
-                node.deleteLastChild();
+    private void specifyClassHeader() {
+        verifyToken(SymbolTable.CLASS);
+        specifyClassName();
+        if (isSymbol(SymbolTable.EXTENDS)) {
+            verifyToken(SymbolTable.EXTENDS);
+            specifyClassName();
+        }
+        verifyToken(SymbolTable.IS);
+    }
+
+    /**
+     * Parses members up to the "end" of the class, broken members are reported and abandoned
+     */
+    private void specifyMembersRecovering() {
+        int depth = openRules;
+        while (currentIndex < tokens.size() && !isSymbol(SymbolTable.END)) {
+            int memberStart = currentIndex;
+            if (!isMemberStart()) {
+                report(error("member declaration"));
+            } else {
                 try {
-                    specifyStatement(node);
-                } catch (Exception e) {
-                    currentIndex = validState;
-                    node.deleteLastChild();
-                    try {
-                        specifyFunctionDeclaration(node);
-                    } catch (Exception exception1) {
-                        currentIndex = validState;
-                        node.deleteLastChild();
-                        break;
-                    }
+                    specifyMemberDeclaration();
+                    continue;
+                } catch (RuntimeException e) {
+                    report(e);
+                    abandonRules(depth);
                 }
             }
+            rewind(FormalGrammar.MEMBER_DECLARATION, nextSynchronizingToken(memberStart + 1));
+        }
+    }
+
+    /**
+     * @param from index to start search from
+     * @return index of the next member keyword or "end" outside of is/while/if ... end blocks,
+     *          index after the next ';' outside of them, or the end of input
+     */
+    private int nextSynchronizingToken(int from) {
+        int depth = 0;
+        for (int index = from; index < tokens.size(); index++) {
+            int symbol = tokens.symbol(index);
+            if (depth == 0 && (symbol == SymbolTable.END || isMemberStart(index))) {
+                return index;
+            }
+            if (depth == 0 && tokens.type(index) == TokenType.DECLARATION_SEPARATOR) {
+                return index + 1;
+            }
+            if (symbol == SymbolTable.IS || symbol == SymbolTable.WHILE || symbol == SymbolTable.IF) {
+                depth++;
+            } else if (symbol == SymbolTable.END) {
+                depth--;
+            }
         }
+        return tokens.size();
+    }
+
+    private void skipToClass() {
+        do {
+            currentIndex++;
+        } while (currentIndex < tokens.size() && !isSymbol(SymbolTable.CLASS));
     }
 
-    public void specifyConstructorDeclaration(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.CONSTRUCTOR_DECLARATION, parentNode);
-        verifyToken("this");
-        if (lexeme().equals("(")) {
-            specifyParameters(node);
+    /**
+     * Records an error at the current token
+     * @param e exception thrown by a rule, anything but {@link CompilationException} comes from reading past the input
+     */
+    private void report(RuntimeException e) {
+        String message = e instanceof CompilationException && e.getMessage() != null ? e.getMessage()
+            : "Unexpected end of input";
+        int index = Math.min(currentIndex, tokens.size());
+        int positioned = Math.min(index, tokens.size() - 1);
+        errors.add(new SyntaxError(message, index, tokens.line(positioned), tokens.column(positioned)));
+    }
+
+    /**
+     * @param expected description of the expected token
+     * @return exception describing the current token
+     */
+    private CompilationException error(String expected) {
+        if (currentIndex >= tokens.size()) {
+            return new CompilationException("Expected " + expected + " but found end of input");
         }
-        verifyToken("is");
-        specifyBody(node);
-        verifyToken("end");
+        return new CompilationException("Expected " + expected + " but found '" + lexeme() + "' at line "
+            + tokens.line(currentIndex) + ", column " + tokens.column(currentIndex));
     }
 
-    private void specifyStatement(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.STATEMENT, parentNode);
-        int validState = currentIndex;
+    /**
+     * Finds member boundaries by is/while/if ... end nesting, parses every member as a separate task
+     * and attaches the members in source order to the class being built.
+     * @return false if the class is small or some member did not parse exactly up to the next boundary,
+     *          nothing is consumed then and the members are parsed sequentially to report the error
+     */
+    private boolean specifyMembersInParallel() {
+        List<Integer> boundaries = memberBoundaries();
+        if (boundaries.size() <= PARALLEL_MIN_MEMBERS || boundaries.get(0) != currentIndex) {
+            return false;
+        }
+        List<ForkJoinTask<Tree>> members = new ArrayList<>();
+        List<ParseStatistics> memberStatistics = new ArrayList<>();
+        for (int member = 0; member + 1 < boundaries.size(); member++) {
+            int start = boundaries.get(member);
+            int end = boundaries.get(member + 1);
+            ParseStatistics taskStatistics = statistics != null ? new ParseStatistics() : null;
+            memberStatistics.add(taskStatistics);
+            members.add(pool.submit(() -> new GrammarChecker(tokens, start, openRules, taskStatistics).parseMember(end)));
+        }
+        List<Tree> memberTrees = new ArrayList<>(members.size());
         try {
-            specifyAssignment(node);
-        } catch (Exception exception) {
-            currentIndex = validState;
-            node.deleteLastChild();
-            try {
-                specifyWhileLoop(node);
-            } catch (Exception e) {
-                currentIndex = validState;
-                node.deleteLastChild();
-                try {
-                    specifyIfStatement(node);
-                } catch (Exception ex) {
-                    currentIndex = validState;
-                    node.deleteLastChild();
-                    specifyReturnStatement(node);
+            for (ForkJoinTask<Tree> task : members) {
+                Tree member = task.join();
+                if (member == null) {
+                    return false;
                 }
+                memberTrees.add(member);
             }
+        } finally {
+            members.forEach(task -> task.cancel(false));
+        }
+        // counts of a class that failed here are dropped, its sequential parse counts everything again
+        if (statistics != null) {
+            memberStatistics.forEach(statistics::add);
         }
+        for (Tree member : memberTrees) {
+            builder.addSubtree(member.getRoot().getChildNodes().get(0));
+            builder.getTree().getMemberSpans().putAll(member.getMemberSpans());
+        }
+        currentIndex = boundaries.get(boundaries.size() - 1);
+        return true;
     }
 
-    private void specifyAssignment(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.ASSIGNMENT, parentNode);
-        specifyIdentifier(node);
-        verifyToken(":");
-        verifyToken("=");
-        int validState = currentIndex;
+    /**
+     * A member starts at var, method, this, class or function outside of any is/while/if ... end block
+     * @return starts of members and the index of the "end" closing the class, empty if the class is not closed
+     */
+    private List<Integer> memberBoundaries() {
+        List<Integer> boundaries = new ArrayList<>();
+        int depth = 0;
+        for (int index = currentIndex; index < tokens.size(); index++) {
+            int symbol = tokens.symbol(index);
+            if (depth == 0 && symbol == SymbolTable.END) {
+                boundaries.add(index);
+                return boundaries;
+            }
+            if (depth == 0 && isMemberStart(index)) {
+                boundaries.add(index);
+            }
+            if (symbol == SymbolTable.IS || symbol == SymbolTable.WHILE || symbol == SymbolTable.IF) {
+                depth++;
+            } else if (symbol == SymbolTable.END) {
+                depth--;
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * @param end index where the member has to end
+     * @return tree with the member declaration under its root, null if the member is broken or ends elsewhere
+     */
+    private Tree parseMember(int end) {
+        startParsing(new TreeBuilder());
         try {
-            specifyMathExpression(node);
-        } catch (Exception e) {
-            currentIndex = validState;
-            node.deleteLastChild();
-            specifyExpression(node);
+            specifyMemberDeclaration();
+        } catch (RuntimeException e) {
+            if (statistics != null) {
+                statistics.fail(statistics.openRules());
+            }
+            return null;
         }
+        return currentIndex == end ? builder.getTree() : null;
+    }
 
+    private void specifyClassName() {
+        enter(FormalGrammar.CLASS_NAME);
+        specifyIdentifier();
+        if (isSymbol(SymbolTable.LEFT_BRACKET)) {
+            verifyToken(SymbolTable.LEFT_BRACKET);
+            specifyClassName();
+            verifyToken(SymbolTable.RIGHT_BRACKET);
+        }
+        exit(FormalGrammar.CLASS_NAME);
     }
 
-    private void specifyWhileLoop(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.WHILE_LOOP, parentNode);
-        verifyToken("while");
-        int validState = currentIndex;
-        try {
-            specifyMathExpression(node);
-        } catch (Exception e) {
-            currentIndex = validState;
-            node.deleteLastChild();
-            specifyExpression(node);
+    private void specifyIdentifier() {
+        if (tokenType() != TokenType.IDENTIFIER) {
+            throw error("identifier");
         }
-        verifyToken("loop");
-        specifyBody(node);
-        verifyToken("end");
+        leaf(FormalGrammar.IDENTIFIER, lexeme());
+        incrementIndex();
     }
 
-    private void specifyIfStatement(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.IF_STATEMENT, parentNode);
-        verifyToken("if");
-        int validState = currentIndex;
-        try {
-            specifyMathExpression(node);
-        } catch (Exception e) {
-            currentIndex = validState;
-            node.deleteLastChild();
-            specifyExpression(node);
+    private void specifyMemberDeclaration() {
+        enter(FormalGrammar.MEMBER_DECLARATION);
+        Node node = builder != null ? builder.current() : null;
+        int start = currentIndex;
+        int symbol = tokens.symbol(currentIndex);
+        if (symbol == SymbolTable.VAR) {
+            specifyVariableDeclaration();
+        } else if (symbol == SymbolTable.METHOD) {
+            specifyMethodDeclaration();
+        } else if (symbol == SymbolTable.THIS) {
+            specifyConstructorDeclaration();
+        } else if (symbol == SymbolTable.CLASS) {
+            specifyNestedClassDeclaration();
+        } else if (symbol == SymbolTable.FUNCTION) {
+            specifyFunctionDeclaration();
+        } else {
+            throw error("member declaration");
         }
-        verifyToken("then");
-        specifyBody(node);
-        if ("else".equals(lexeme())) {
-            verifyToken("else");
-            specifyBody(node);
+        exit(FormalGrammar.MEMBER_DECLARATION);
+        if (node != null) {
+            builder.getTree().getMemberSpans().put(node, new Pair<>(start, currentIndex));
         }
-        verifyToken("end");
     }
 
-    private void specifyReturnStatement(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.RETURN_STATEMENT, parentNode);
-        verifyToken("return");
-        int validState = currentIndex;
-        try {
-            specifyMathExpression(node);
-        } catch (Exception e) {
-            currentIndex = validState;
-            node.deleteLastChild();
-            specifyExpression(node);
+    private boolean isMemberStart() {
+        return isMemberStart(currentIndex);
+    }
+
+    private boolean isMemberStart(int index) {
+        int symbol = tokens.symbol(index);
+        return symbol == SymbolTable.VAR || symbol == SymbolTable.METHOD || symbol == SymbolTable.THIS
+            || symbol == SymbolTable.CLASS || symbol == SymbolTable.FUNCTION;
+    }
+
+    private void specifyFunctionDeclaration() {
+        enter(FormalGrammar.FUNCTION_DECLARATION);
+        verifyToken(SymbolTable.FUNCTION);
+        verifyToken(SymbolTable.LESS);
+        specifyIdentifier();
+        verifyToken(SymbolTable.COMMA);
+        specifyIdentifier();
+        verifyToken(SymbolTable.GREATER);
+        specifyIdentifier();
+        verifyToken(SymbolTable.COLON);
+        verifyToken(SymbolTable.EQUAL);
+        specifyIdentifier();
+        verifyToken(SymbolTable.MINUS);
+        verifyToken(SymbolTable.GREATER);
+        specifyExpression();
+        exit(FormalGrammar.FUNCTION_DECLARATION);
+    }
+
+    private void specifyNestedClassDeclaration() {
+        specifyClassDeclaration();
+    }
+
+    private void specifyVariableDeclaration() {
+        enter(FormalGrammar.VARIABLE_DECLARATION);
+        verifyToken(SymbolTable.VAR);
+        specifyIdentifier();
+        verifyToken(SymbolTable.COLON);
+        specifyExpression();
+        exit(FormalGrammar.VARIABLE_DECLARATION);
+    }
+
+    private void specifyMethodDeclaration() {
+        enter(FormalGrammar.METHOD_DECLARATION);
+        verifyToken(SymbolTable.METHOD);
+        specifyIdentifier();
+        if (isSymbol(SymbolTable.LEFT_PARENTHESIS)) {
+            specifyParameters();
         }
+        if (isSymbol(SymbolTable.COLON)) {
+            verifyToken(SymbolTable.COLON);
+            specifyIdentifier();
+        }
+        verifyToken(SymbolTable.IS);
+        specifyBody();
+        verifyToken(SymbolTable.END);
+        exit(FormalGrammar.METHOD_DECLARATION);
     }
 
-    private void specifyExpression(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.EXPRESSION, parentNode);
-        specifyPrimary(node);
-        while (lexeme().equals(".")) {
-            verifyToken(".");
-            specifyIdentifier(node);
-            int validIndex = currentIndex;
-            try {
-                specifyArguments(node);
-            } catch (Exception exception) {
-                currentIndex = validIndex;
-                node.deleteLastChild();
-//                break;
+    private void specifyParameters() {
+        enter(FormalGrammar.PARAMETERS);
+        verifyToken(SymbolTable.LEFT_PARENTHESIS);
+        specifyParameterDeclaration();
+        while (isSymbol(SymbolTable.COMMA)) {
+            verifyToken(SymbolTable.COMMA);
+            specifyParameterDeclaration();
+        }
+        verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+        exit(FormalGrammar.PARAMETERS);
+    }
+
+    private void specifyParameterDeclaration() {
+        if (isSymbol(SymbolTable.RIGHT_PARENTHESIS)) {
+            return;
+        }
+        enter(FormalGrammar.PARAMETER_DECLARATION);
+        specifyIdentifier();
+        verifyToken(SymbolTable.COLON);
+        specifyClassName();
+        exit(FormalGrammar.PARAMETER_DECLARATION);
+    }
+
+    private void specifyBody() {
+        enter(FormalGrammar.BODY);
+        while (true) {
+            if (isSymbol(SymbolTable.VAR)) {
+                specifyVariableDeclaration();
+            } else if (isFunctionStart()) {
+                specifyFunctionDeclaration();
+            } else if (isStatementStart()) {
+                specifyStatement();
+            } else {
+                break;
             }
         }
+        exit(FormalGrammar.BODY);
+    }
+
+    /**
+     * "function" is an identifier, only the '<' after it tells a function declaration from an assignment
+     */
+    private boolean isFunctionStart() {
+        return isSymbol(SymbolTable.FUNCTION) && currentIndex + 1 < tokens.size()
+            && tokens.symbol(currentIndex + 1) == SymbolTable.LESS;
+    }
+
+    private boolean isStatementStart() {
+        return tokenType() == TokenType.IDENTIFIER || isSymbol(SymbolTable.WHILE) || isSymbol(SymbolTable.IF)
+            || isSymbol(SymbolTable.RETURN);
+    }
+
+    private void specifyConstructorDeclaration() {
+        enter(FormalGrammar.CONSTRUCTOR_DECLARATION);
+        verifyToken(SymbolTable.THIS);
+        if (isSymbol(SymbolTable.LEFT_PARENTHESIS)) {
+            specifyParameters();
+        }
+        verifyToken(SymbolTable.IS);
+        specifyBody();
+        verifyToken(SymbolTable.END);
+        exit(FormalGrammar.CONSTRUCTOR_DECLARATION);
+    }
+
+    private void specifyStatement() {
+        enter(FormalGrammar.STATEMENT);
+        if (isSymbol(SymbolTable.WHILE)) {
+            specifyWhileLoop();
+        } else if (isSymbol(SymbolTable.IF)) {
+            specifyIfStatement();
+        } else if (isSymbol(SymbolTable.RETURN)) {
+            specifyReturnStatement();
+        } else {
+            specifyAssignment();
+        }
+        exit(FormalGrammar.STATEMENT);
+    }
+
+    private void specifyAssignment() {
+        enter(FormalGrammar.ASSIGNMENT);
+        specifyIdentifier();
+        verifyToken(SymbolTable.COLON);
+        verifyToken(SymbolTable.EQUAL);
+        specifyOperand();
+        exit(FormalGrammar.ASSIGNMENT);
+    }
+
+    private void specifyWhileLoop() {
+        enter(FormalGrammar.WHILE_LOOP);
+        verifyToken(SymbolTable.WHILE);
+        specifyOperand();
+        verifyToken(SymbolTable.LOOP);
+        specifyBody();
+        verifyToken(SymbolTable.END);
+        exit(FormalGrammar.WHILE_LOOP);
+    }
+
+    private void specifyIfStatement() {
+        enter(FormalGrammar.IF_STATEMENT);
+        verifyToken(SymbolTable.IF);
+        specifyOperand();
+        verifyToken(SymbolTable.THEN);
+        specifyBody();
+        if (isSymbol(SymbolTable.ELSE)) {
+            verifyToken(SymbolTable.ELSE);
+            specifyBody();
+        }
+        verifyToken(SymbolTable.END);
+        exit(FormalGrammar.IF_STATEMENT);
+    }
+
+    private void specifyReturnStatement() {
+        enter(FormalGrammar.RETURN_STATEMENT);
+        verifyToken(SymbolTable.RETURN);
+        specifyOperand();
+        exit(FormalGrammar.RETURN_STATEMENT);
+    }
+
+    private void specifyExpression() {
+        enter(FormalGrammar.EXPRESSION);
+        specifyPrimary();
+        while (isSymbol(SymbolTable.DOT)) {
+            verifyToken(SymbolTable.DOT);
+            specifyIdentifier();
+            if (isSymbol(SymbolTable.LEFT_PARENTHESIS)) {
+                specifyArguments();
+            }
+        }
+        exit(FormalGrammar.EXPRESSION);
+    }
+
+    /**
+     * Parses an expression with binary operations in one pass by precedence climbing.
+     * An operation turns the operand before it into the left child of MATH_EXPRESSION [left, OPERATION, right],
+     * operands are EXPRESSION nodes or nested MATH_EXPRESSION nodes of operations that bind tighter,
+     * so "a + b * c < d" becomes ((a + (b * c)) < d).
+     * Events of the expression are recorded and passed to the listener at its end,
+     * so that MATH_EXPRESSION is entered before its left operand.
+     */
+    private void specifyOperand() {
+        ParseListener target = listener;
+        listener = recorder;
+        try {
+            specifyOperand(COMPARISON);
+        } finally {
+            listener = target;
+            recorder.replay(target);
+        }
+    }
+
+    private void specifyOperand(int minPrecedence) {
+        int start = recorder.reserve();
+        specifyExpression();
+        while (isOperationStart() && operationPrecedence() >= minPrecedence) {
+            int precedence = operationPrecedence();
+            recorder.enterAt(start, FormalGrammar.MATH_EXPRESSION);
+            opened(FormalGrammar.MATH_EXPRESSION);
+            specifyOperation();
+            specifyOperand(precedence + 1);
+            exit(FormalGrammar.MATH_EXPRESSION);
+        }
     }
 
-    private void specifyMathExpression(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.MATH_EXPRESSION, parentNode);
-        specifyExpression(node);
-        specifyOperation(node);
-        specifyExpression(node);
+    private boolean isOperationStart() {
+        return tokenType() == TokenType.OPERATOR && isOperationSymbol(tokens.symbol(currentIndex));
+    }
+
+    /**
+     * Operations of two operator tokens like "<=" or "/=" are comparisons
+     */
+    private int operationPrecedence() {
+        int symbol = tokens.symbol(currentIndex);
+        if (currentIndex + 1 < tokens.size() && tokens.type(currentIndex + 1) == TokenType.OPERATOR) {
+            return COMPARISON;
+        }
+        if (symbol == SymbolTable.MULTIPLY || symbol == SymbolTable.DIVIDE) {
+            return MULTIPLICATIVE;
+        }
+        if (symbol == SymbolTable.PLUS || symbol == SymbolTable.MINUS) {
+            return ADDITIVE;
+        }
+        return COMPARISON;
     }
 
-    private void specifyOperation(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.OPERATION, parentNode);
-        node.setValue(verifyOperation());
+    private void specifyOperation() {
+        leaf(FormalGrammar.OPERATION, verifyOperation());
     }
 
     private String verifyOperation() {
         String operation = "";
         if (
             tokenType().equals(TokenType.OPERATOR)
-            && List.of("+", "-", "/", "==", ">=", ">", "<=", "<", "*", "=").contains(lexeme())
+            && isOperationSymbol(tokens.symbol(currentIndex))
         ) {
             operation += lexeme();
             incrementIndex();
         } else {
-            throw new CompilationException("Not an operator");
+            throw error("operator");
         }
         if (tokenType().equals(TokenType.OPERATOR)) {
             operation += lexeme();
@@ -343,50 +921,61 @@ public class GrammarChecker {
         return operation;
     }
 
-    private void specifyArguments(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.ARGUMENTS, parentNode);
-        verifyToken("(");
-        if (lexeme().equals(")")) {
-            verifyToken(")");
+    private boolean isOperationSymbol(int symbol) {
+        return symbol == SymbolTable.PLUS || symbol == SymbolTable.MINUS || symbol == SymbolTable.DIVIDE
+            || symbol == SymbolTable.GREATER || symbol == SymbolTable.LESS || symbol == SymbolTable.MULTIPLY
+            || symbol == SymbolTable.EQUAL;
+    }
+
+    private void specifyArguments() {
+        enter(FormalGrammar.ARGUMENTS);
+        verifyToken(SymbolTable.LEFT_PARENTHESIS);
+        if (isSymbol(SymbolTable.RIGHT_PARENTHESIS)) {
+            verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+            exit(FormalGrammar.ARGUMENTS);
             return;
         }
-        specifyExpression(node);
-        while (lexeme().equals(",")) {
-            verifyToken(",");
-            specifyExpression(node);
+        specifyExpression();
+        while (isSymbol(SymbolTable.COMMA)) {
+            verifyToken(SymbolTable.COMMA);
+            specifyExpression();
         }
-        verifyToken(")");
+        verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+        exit(FormalGrammar.ARGUMENTS);
     }
 
-    private void specifyPrimary(Node parentNode) {
-        Node node = tree.addNode(FormalGrammar.PRIMARY, parentNode);
-        int validIndex = currentIndex;
-        try {
-            node.setValue(lexeme());
-            verifyTokenType(TokenType.LITERAL);
-        } catch (Exception exception) {
-            currentIndex = validIndex;
-            try {
-                verifyToken("this");
-                node.setValue("this");
-            } catch (Exception e) {
-                currentIndex = validIndex;
-                specifyClassName(node);
-            }
+    /**
+     * A literal or "this" is a leaf, a class name is a child of PRIMARY
+     */
+    private void specifyPrimary() {
+        if (tokenType() == TokenType.LITERAL) {
+            listener.literal(lexeme(), tokens.literalType(currentIndex));
+            incrementIndex();
+        } else if (isSymbol(SymbolTable.THIS)) {
+            leaf(FormalGrammar.PRIMARY, lexeme());
+            verifyToken(SymbolTable.THIS);
+        } else {
+            enter(FormalGrammar.PRIMARY, lexeme());
+            specifyClassName();
+            exit(FormalGrammar.PRIMARY);
         }
     }
 
     private String lexeme() {
-        return tokens.get(currentIndex).getLexeme();
+        return tokens.lexeme(currentIndex);
+    }
+
+    private boolean isSymbol(int symbol) {
+        return tokens.symbol(currentIndex) == symbol;
     }
 
     private TokenType tokenType() {
-        return tokens.get(currentIndex).getType();
+        return tokens.type(currentIndex);
     }
 
-    private void verifyToken(String lexeme) {
-        if (!lexeme().equals(lexeme)) {
-            throw new CompilationException();
+    private void verifyToken(int symbol) {
+        if (!isSymbol(symbol)) {
+            throw error("'" + SymbolTable.name(symbol) + "'");
         } else {
             try {
                 incrementIndex();
@@ -395,18 +984,144 @@ public class GrammarChecker {
         }
     }
 
-    private void verifyTokenType(TokenType tokenType) {
-        if (!tokenType.equals(tokenType())) {
-            throw new CompilationException();
-        } else {
-            incrementIndex();
-        }
-    }
-
     private void incrementIndex() {
         currentIndex++;
         if (currentIndex == tokens.size()) {
-            throw new CompilationException();
+            throw new CompilationException("Unexpected end of input");
+        }
+    }
+
+    /**
+     * Listener keeping events in parallel arrays to pass them on later, reused for every operand.
+     * Rules entered before events already recorded go to a slot reserved ahead of them, so events are only appended.
+     */
+    private static final class EventRecorder implements ParseListener {
+
+        private static final byte ENTER = 0;
+        private static final byte EXIT = 1;
+        private static final byte LEAF = 2;
+        // reserved slot entering its rule as many times as its count
+        private static final byte ENTERS = 3;
+        // a literal is recorded as LITERAL plus the ordinal of its kind
+        private static final byte LITERAL = 4;
+        private static final LiteralType[] literalTypes = LiteralType.values();
+
+        private byte[] kinds = new byte[32];
+        private FormalGrammar[] rules = new FormalGrammar[32];
+        private String[] values = new String[32];
+        private int[] counts = new int[32];
+        private int size;
+
+        @Override
+        public void enterRule(FormalGrammar rule, String value) {
+            add(ENTER, rule, value);
+        }
+
+        @Override
+        public void exitRule(FormalGrammar rule) {
+            add(EXIT, rule, null);
+        }
+
+        @Override
+        public void leaf(FormalGrammar type, String value) {
+            add(LEAF, type, value);
+        }
+
+        @Override
+        public void literal(String value, LiteralType literalType) {
+            add((byte) (LITERAL + literalType.ordinal()), FormalGrammar.PRIMARY, value);
+        }
+
+        /**
+         * Forgets the events from the outermost abandoned rule on, the rules must have been entered while recording
+         */
+        @Override
+        public void abandonRules(int count) {
+            int index = size;
+            // rules exited inside the abandoned ones, each ENTER below matches one of them first
+            int closed = 0;
+            // rules of a reserved slot entered before the outermost abandoned one
+            int kept = 0;
+            while (count > 0) {
+                if (index == 0) {
+                    throw new IllegalStateException("Abandoned rules were entered before recording");
+                }
+                index--;
+                if (kinds[index] == EXIT) {
+                    closed++;
+                } else if (kinds[index] == ENTER || kinds[index] == ENTERS) {
+                    int entered = kinds[index] == ENTER ? 1 : counts[index];
+                    while (entered > 0 && count > 0) {
+                        entered--;
+                        if (closed > 0) {
+                            closed--;
+                        } else {
+                            count--;
+                        }
+                    }
+                    kept = entered;
+                }
+            }
+            if (kept > 0) {
+                counts[index++] = kept;
+            }
+            Arrays.fill(values, index, size, null);
+            Arrays.fill(rules, index, size, null);
+            size = index;
+        }
+
+        /**
+         * @return slot for rules entered later before the events recorded from now on
+         */
+        int reserve() {
+            add(ENTERS, null, null);
+            counts[size - 1] = 0;
+            return size - 1;
+        }
+
+        /**
+         * @param slot slot from {@link #reserve()}
+         * @param rule rule entered before the events recorded after the slot, inside the rules entered there before
+         */
+        void enterAt(int slot, FormalGrammar rule) {
+            rules[slot] = rule;
+            counts[slot]++;
+        }
+
+        /**
+         * Passes all events to the listener and forgets them
+         * @param target listener receiving the events
+         */
+        void replay(ParseListener target) {
+            for (int index = 0; index < size; index++) {
+                switch (kinds[index]) {
+                    case ENTER -> target.enterRule(rules[index], values[index]);
+                    case EXIT -> target.exitRule(rules[index]);
+                    case LEAF -> target.leaf(rules[index], values[index]);
+                    case ENTERS -> {
+                        for (int entered = 0; entered < counts[index]; entered++) {
+                            target.enterRule(rules[index], null);
+                        }
+                    }
+                    default -> target.literal(values[index], literalTypes[kinds[index] - LITERAL]);
+                }
+            }
+            Arrays.fill(values, 0, size, null);
+            Arrays.fill(rules, 0, size, null);
+            size = 0;
+        }
+
+        private void add(byte kind, FormalGrammar rule, String value) {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                rules = Arrays.copyOf(rules, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            kinds[size] = kind;
+            rules[size] = rule;
+            values[size] = value;
+            size++;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,28 @@
 package com.example.transpiler.syntaxer;
 
+import com.example.transpiler.lexer.LiteralType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.ArrayList;
 import java.util.List;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
-@Data
-@AllArgsConstructor
+/**
+ * Node of a syntax tree, equal only to itself. {@link TreeUtil#sameStructure} compares subtrees.
+ */
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 public class Node {
     private FormalGrammar type;
     private String value;
     private List<Node> childNodes;
+    // kind of a literal PRIMARY as classified by the lexer, null for other nodes
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LiteralType literalType;
 
     public Node(FormalGrammar formalGrammar) {
         childNodes = new ArrayList<>();
@@ -25,6 +35,23 @@ public class Node {
         this.value = value;
     }
 
+    /**
+     * @param literal lexeme of the literal
+     * @param literalType kind of the literal
+     * @return PRIMARY leaf of the literal
+     */
+    public static Node literal(String literal, LiteralType literalType) {
+        Node node = new Node(FormalGrammar.PRIMARY, literal);
+        node.literalType = literalType;
+        return node;
+    }
+
+    public Node(FormalGrammar type, String value, List<Node> childNodes) {
+        this.type = type;
+        this.value = value;
+        this.childNodes = childNodes;
+    }
+
     public Node addChild(Node childNode) {
         childNodes.add(childNode);
         return childNode;
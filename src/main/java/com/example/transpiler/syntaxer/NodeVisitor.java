@@ -0,0 +1,20 @@
+package com.example.transpiler.syntaxer;
+
+/**
+ * Receives the nodes of a subtree from {@link TreeWalker#walk} in document order.
+ * Keeps its results in its own fields, so walks on different threads do not share state.
+ */
+public interface NodeVisitor {
+
+    /**
+     * @param node node entered before its children
+     * @return false to skip the children of the node and its {@link #exit}
+     */
+    boolean enter(Node node);
+
+    /**
+     * @param node node whose children were all visited
+     */
+    default void exit(Node node) {
+    }
+}
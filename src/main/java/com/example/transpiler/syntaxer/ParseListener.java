@@ -0,0 +1,41 @@
+package com.example.transpiler.syntaxer;
+
+import com.example.transpiler.lexer.LiteralType;
+
+/**
+ * Receives the syntax tree of a program as a stream of events in source order instead of {@link Node} objects.
+ * Every entered rule is either exited or abandoned, leaves are nodes without children.
+ */
+public interface ParseListener {
+
+    /**
+     * @param rule rule whose children follow until the matching {@link #exitRule}
+     * @param value class name of a PRIMARY naming a class, null for other rules
+     */
+    void enterRule(FormalGrammar rule, String value);
+
+    void exitRule(FormalGrammar rule);
+
+    /**
+     * @param type IDENTIFIER, OPERATION, or PRIMARY of "this"
+     * @param value name of the identifier or the operation, "this"
+     */
+    void leaf(FormalGrammar type, String value);
+
+    /**
+     * A literal is a PRIMARY leaf, listeners keeping its kind override this
+     * @param value lexeme of the literal
+     * @param literalType kind of the literal as classified by the lexer
+     */
+    default void literal(String value, LiteralType literalType) {
+        leaf(FormalGrammar.PRIMARY, value);
+    }
+
+    /**
+     * The last rules entered and not exited failed to parse, they and everything inside them are not part of
+     * the program. Happens when a class is cut off by the end of input or a recovering parse drops a broken
+     * member or class header.
+     * @param count number of rules to drop, the outermost one is the first of them entered
+     */
+    void abandonRules(int count);
+}
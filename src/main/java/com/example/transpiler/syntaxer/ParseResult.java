@@ -0,0 +1,19 @@
+package com.example.transpiler.syntaxer;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Result of parsing with error recovery: tree of every member that parsed and errors in source order
+ */
+@Data
+@AllArgsConstructor
+public class ParseResult {
+    private final Tree tree;
+    private final List<SyntaxError> errors;
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
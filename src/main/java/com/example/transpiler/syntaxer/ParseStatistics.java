@@ -0,0 +1,164 @@
+package com.example.transpiler.syntaxer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters of one parse per {@link FormalGrammar} rule, kept in primitive arrays indexed by the rule ordinal.
+ * Not thread safe, a parser merges statistics of its parallel tasks after joining them.
+ */
+public class ParseStatistics {
+
+    private static final FormalGrammar[] rules = FormalGrammar.values();
+
+    private final long[] attempts = new long[rules.length];
+    private final long[] successes = new long[rules.length];
+    private final long[] failures = new long[rules.length];
+    private final long[] removals = new long[rules.length];
+    private final long[] tokensRewound = new long[rules.length];
+    private final int[] maxDepths = new int[rules.length];
+    // ordinals of rules entered and not exited yet
+    private int[] open = new int[64];
+    private int openCount;
+
+    /**
+     * @param rule entered rule
+     * @param depth number of rules it is nested in, itself included
+     */
+    void enter(FormalGrammar rule, int depth) {
+        int ordinal = rule.ordinal();
+        attempts[ordinal]++;
+        maxDepths[ordinal] = Math.max(maxDepths[ordinal], depth);
+        if (openCount == open.length) {
+            open = Arrays.copyOf(open, openCount * 2);
+        }
+        open[openCount++] = ordinal;
+    }
+
+    void exit() {
+        successes[open[--openCount]]++;
+    }
+
+    /**
+     * The last rules entered failed, the outermost of them is removed from the tree
+     * @param count number of failed rules
+     */
+    void abandon(int count) {
+        fail(count);
+        if (count > 0) {
+            removals[open[openCount]]++;
+        }
+    }
+
+    /**
+     * The last rules entered failed and the parse stops
+     * @param count number of failed rules
+     */
+    void fail(int count) {
+        for (int rule = 0; rule < count; rule++) {
+            failures[open[--openCount]]++;
+        }
+    }
+
+    void rewind(FormalGrammar rule, int tokens) {
+        tokensRewound[rule.ordinal()] += tokens;
+    }
+
+    int openRules() {
+        return openCount;
+    }
+
+    /**
+     * Adds counters of another parse, rules open in it are ignored
+     * @param other statistics of a part of the same program
+     */
+    void add(ParseStatistics other) {
+        for (int rule = 0; rule < rules.length; rule++) {
+            attempts[rule] += other.attempts[rule];
+            successes[rule] += other.successes[rule];
+            failures[rule] += other.failures[rule];
+            removals[rule] += other.removals[rule];
+            tokensRewound[rule] += other.tokensRewound[rule];
+            maxDepths[rule] = Math.max(maxDepths[rule], other.maxDepths[rule]);
+        }
+    }
+
+    public long attempts(FormalGrammar rule) {
+        return attempts[rule.ordinal()];
+    }
+
+    public long successes(FormalGrammar rule) {
+        return successes[rule.ordinal()];
+    }
+
+    /**
+     * @param rule grammar rule
+     * @return number of times the rule was entered and then abandoned or unwound by an error
+     */
+    public long failures(FormalGrammar rule) {
+        return failures[rule.ordinal()];
+    }
+
+    /**
+     * @param rule grammar rule
+     * @return number of partially parsed nodes of the rule removed from the tree with everything inside them
+     */
+    public long removals(FormalGrammar rule) {
+        return removals[rule.ordinal()];
+    }
+
+    /**
+     * @param rule grammar rule
+     * @return number of tokens parsed again after a failure inside of the rule
+     */
+    public long tokensRewound(FormalGrammar rule) {
+        return tokensRewound[rule.ordinal()];
+    }
+
+    /**
+     * @param rule grammar rule
+     * @return largest number of rules the rule was nested in, itself included
+     */
+    public int maxDepth(FormalGrammar rule) {
+        return maxDepths[rule.ordinal()];
+    }
+
+    /**
+     * @return largest nesting of rules in the program
+     */
+    public int maxDepth() {
+        return Arrays.stream(maxDepths).max().orElse(0);
+    }
+
+    /**
+     * @return counters of every entered rule, keyed by the rule name
+     */
+    public String toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("maxDepth", maxDepth());
+        Map<String, Map<String, Long>> counters = new LinkedHashMap<>();
+        for (FormalGrammar rule : rules) {
+            if (attempts(rule) == 0) {
+                continue;
+            }
+            Map<String, Long> ruleCounters = new LinkedHashMap<>();
+            ruleCounters.put("attempts", attempts(rule));
+            ruleCounters.put("successes", successes(rule));
+            ruleCounters.put("failures", failures(rule));
+            ruleCounters.put("removals", removals(rule));
+            ruleCounters.put("tokensRewound", tokensRewound(rule));
+            ruleCounters.put("maxDepth", (long) maxDepth(rule));
+            counters.put(rule.name(), ruleCounters);
+        }
+        json.put("rules", counters);
+        try {
+            return new ObjectMapper().writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.transpiler.syntaxer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Syntax error found by the parser, positioned at the token where parsing failed
+ */
+@Data
+@AllArgsConstructor
+public class SyntaxError {
+    private final String message;
+    // index of the failed token, size of the token buffer if the input ended too early
+    private final int tokenIndex;
+    private final int line;
+    private final int column;
+}
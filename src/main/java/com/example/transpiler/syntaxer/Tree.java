@@ -1,21 +1,287 @@
 package com.example.transpiler.syntaxer;
 
+import com.example.transpiler.util.Pair;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class Tree {
+
+    public static final int NONE = -1;
+
     private final Node root;
     private String className;
+    // token range [first, second) of every member declaration, lets an edit reparse only the members it touches
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<Node, Pair<Integer, Integer>> memberSpans = new IdentityHashMap<>();
+    // ids, parents, scopes and kind index of the nodes, built on the first query and replaced as a whole,
+    // so threads querying at once all see one version
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Index index;
 
     public Tree() {
         root = new Node(FormalGrammar.PROGRAM);
     }
 
     public Node addNode(FormalGrammar formalGrammar, Node parentNode) {
+        index = null;
         return parentNode.addChild(new Node(formalGrammar));
     }
 
     public void addNode(FormalGrammar formalGrammar, String value, Node parentNode) {
+        index = null;
         parentNode.addChild(new Node(formalGrammar, value));
     }
+
+    /**
+     * Finds parent, enclosing scope and id of every node in one walk, scopes are method, constructor and
+     * class declarations, ids number nodes in document order from 0 at the root.
+     * Indexes the nodes by kind, call it again after changing the tree other than through {@link #addNode}.
+     * Nothing is stored on the nodes, trees sharing subtrees after a reparse keep their own links.
+     */
+    public void link() {
+        index = buildIndex();
+    }
+
+    /**
+     * @return number of nodes, ids of nodes are below it
+     */
+    @JsonIgnore
+    public int getNodeCount() {
+        return index().nodes.length;
+    }
+
+    /**
+     * Indexes the tree on the first query, after that takes time proportional to the number of nodes found
+     * @param kind node kind
+     * @return nodes of the kind in document order
+     */
+    public List<Node> nodesOfKind(FormalGrammar kind) {
+        Index current = index();
+        return current.nodesOfKind(kind, 0, current.nodes.length);
+    }
+
+    /**
+     * @param subtree node of the tree
+     * @param kind node kind
+     * @return nodes of the kind in the subtree of the node, itself included, in document order,
+     *          empty if the node is not in the tree
+     */
+    public List<Node> nodesOfKind(Node subtree, FormalGrammar kind) {
+        Index current = index();
+        int id = current.ids.getOrDefault(subtree, NONE);
+        return id == NONE ? List.of() : current.nodesOfKind(kind, id, current.subtreeEnds[id]);
+    }
+
+    /**
+     * @param kinds node kinds
+     * @return nodes of any of the kinds in document order
+     */
+    public List<Node> nodesOfKinds(Collection<FormalGrammar> kinds) {
+        Index current = index();
+        Set<FormalGrammar> distinctKinds = EnumSet.noneOf(FormalGrammar.class);
+        distinctKinds.addAll(kinds);
+        int[] found = new int[0];
+        for (FormalGrammar kind : distinctKinds) {
+            int[] ids = current.idsByKind.getOrDefault(kind, new int[0]);
+            int size = found.length;
+            found = Arrays.copyOf(found, size + ids.length);
+            System.arraycopy(ids, 0, found, size, ids.length);
+        }
+        Arrays.sort(found);
+        List<Node> result = new ArrayList<>(found.length);
+        for (int id : found) {
+            result.add(current.nodes[id]);
+        }
+        return result;
+    }
+
+    /**
+     * @param node node of the tree
+     * @return parent of the node in this tree, null for the root or if the node is not in the tree
+     */
+    public Node parentOf(Node node) {
+        Index current = index();
+        int id = current.ids.getOrDefault(node, NONE);
+        return id == NONE ? null : current.node(current.parents[id]);
+    }
+
+    /**
+     * @param node node of the tree
+     * @return closest method, constructor or class declaration enclosing the node, null at the top level
+     *          or if the node is not in the tree
+     */
+    public Node scopeOf(Node node) {
+        Index current = index();
+        int id = current.ids.getOrDefault(node, NONE);
+        return id == NONE ? null : current.node(current.scopes[id]);
+    }
+
+    /**
+     * @param node node of the tree
+     * @return id of the node in this tree, NONE if the node is not in the tree
+     */
+    public int nodeId(Node node) {
+        return index().ids.getOrDefault(node, NONE);
+    }
+
+    /**
+     * @param id id of a node of the tree
+     * @return the node with the id
+     */
+    public Node nodeOf(int id) {
+        return index().nodes[id];
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            current = buildIndex();
+            index = current;
+        }
+        return current;
+    }
+
+    private Index buildIndex() {
+        Indexer indexer = new Indexer();
+        TreeWalker.walk(root, indexer);
+        return indexer.build();
+    }
+
+    private static boolean isScope(Node node) {
+        FormalGrammar type = node.getType();
+        return type == FormalGrammar.METHOD_DECLARATION || type == FormalGrammar.CLASS_DECLARATION
+            || type == FormalGrammar.CONSTRUCTOR_DECLARATION;
+    }
+
+    /**
+     * Ids, parents, scopes and kind index of one version of the tree, never changed once built
+     */
+    private static final class Index {
+
+        // nodes by id
+        private final Node[] nodes;
+        private final Map<Node, Integer> ids;
+        // id of the parent of every node, NONE for the root
+        private final int[] parents;
+        // id of the closest enclosing method, constructor or class declaration of every node, NONE at the top level
+        private final int[] scopes;
+        // id after the last node of the subtree of every node
+        private final int[] subtreeEnds;
+        // ids of the nodes of every kind in document order
+        private final Map<FormalGrammar, int[]> idsByKind;
+
+        private Index(Node[] nodes, Map<Node, Integer> ids, int[] parents, int[] scopes, int[] subtreeEnds,
+                      Map<FormalGrammar, int[]> idsByKind) {
+            this.nodes = nodes;
+            this.ids = ids;
+            this.parents = parents;
+            this.scopes = scopes;
+            this.subtreeEnds = subtreeEnds;
+            this.idsByKind = idsByKind;
+        }
+
+        private Node node(int id) {
+            return id == NONE ? null : nodes[id];
+        }
+
+        /**
+         * @return nodes of the kind with ids in [from, to)
+         */
+        private List<Node> nodesOfKind(FormalGrammar kind, int from, int to) {
+            int[] ofKind = idsByKind.get(kind);
+            if (ofKind == null) {
+                return List.of();
+            }
+            List<Node> result = new ArrayList<>();
+            int position = firstAtLeast(ofKind, from);
+            while (position < ofKind.length && ofKind[position] < to) {
+                result.add(nodes[ofKind[position++]]);
+            }
+            return result;
+        }
+
+        /**
+         * @return index of the first of the sorted ids that is not less than the id, ids.length if there is none
+         */
+        private static int firstAtLeast(int[] sortedIds, int id) {
+            int position = Arrays.binarySearch(sortedIds, id);
+            return position >= 0 ? position : -position - 1;
+        }
+    }
+
+    /**
+     * Numbers the nodes in the order the walker enters them, the ids of the entered nodes not exited yet
+     * are the path to the current node
+     */
+    private static final class Indexer implements NodeVisitor {
+
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<Node, Integer> ids = new IdentityHashMap<>();
+        private int[] parents = new int[64];
+        private int[] scopes = new int[64];
+        private int[] subtreeEnds = new int[64];
+        private final int[] kindCounts = new int[FormalGrammar.values().length];
+        private int[] path = new int[16];
+        private int depth;
+
+        @Override
+        public boolean enter(Node node) {
+            int id = nodes.size();
+            if (id == parents.length) {
+                parents = Arrays.copyOf(parents, id * 2);
+                scopes = Arrays.copyOf(scopes, id * 2);
+                subtreeEnds = Arrays.copyOf(subtreeEnds, id * 2);
+            }
+            int parent = depth == 0 ? NONE : path[depth - 1];
+            nodes.add(node);
+            ids.put(node, id);
+            parents[id] = parent;
+            scopes[id] = parent == NONE ? NONE : isScope(nodes.get(parent)) ? parent : scopes[parent];
+            kindCounts[node.getType().ordinal()]++;
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = id;
+            return true;
+        }
+
+        @Override
+        public void exit(Node node) {
+            subtreeEnds[path[--depth]] = nodes.size();
+        }
+
+        private Index build() {
+            int size = nodes.size();
+            Map<FormalGrammar, int[]> idsByKind = new EnumMap<>(FormalGrammar.class);
+            int[] kindSizes = new int[kindCounts.length];
+            for (int id = 0; id < size; id++) {
+                FormalGrammar kind = nodes.get(id).getType();
+                int[] ofKind = idsByKind.computeIfAbsent(kind, key -> new int[kindCounts[key.ordinal()]]);
+                ofKind[kindSizes[kind.ordinal()]++] = id;
+            }
+            return new Index(nodes.toArray(new Node[0]), ids, Arrays.copyOf(parents, size),
+                Arrays.copyOf(scopes, size), Arrays.copyOf(subtreeEnds, size), idsByKind);
+        }
+    }
 }
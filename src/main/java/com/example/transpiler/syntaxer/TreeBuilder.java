@@ -0,0 +1,68 @@
+package com.example.transpiler.syntaxer;
+
+import com.example.transpiler.lexer.LiteralType;
+import java.util.ArrayDeque;
+
+/**
+ * Listener building the syntax tree, used by every parse that returns a {@link Tree}
+ */
+public class TreeBuilder implements ParseListener {
+
+    private final Tree tree = new Tree();
+    // nodes of rules entered and not exited yet, the root at the bottom
+    private final ArrayDeque<Node> open = new ArrayDeque<>();
+
+    public TreeBuilder() {
+        open.push(tree.getRoot());
+    }
+
+    @Override
+    public void enterRule(FormalGrammar rule, String value) {
+        open.push(open.peek().addChild(new Node(rule, value)));
+    }
+
+    @Override
+    public void exitRule(FormalGrammar rule) {
+        open.pop();
+    }
+
+    @Override
+    public void leaf(FormalGrammar type, String value) {
+        open.peek().addChild(new Node(type, value));
+    }
+
+    @Override
+    public void literal(String value, LiteralType literalType) {
+        open.peek().addChild(Node.literal(value, literalType));
+    }
+
+    @Override
+    public void abandonRules(int count) {
+        if (count == 0) {
+            return;
+        }
+        for (int rule = 0; rule < count; rule++) {
+            open.pop();
+        }
+        open.peek().deleteLastChild();
+    }
+
+    public Tree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return node of the innermost rule not exited yet, the root if there is none
+     */
+    Node current() {
+        return open.peek();
+    }
+
+    /**
+     * Adds a node built elsewhere as the last child of the current node
+     * @param node subtree to attach
+     */
+    void addSubtree(Node node) {
+        open.peek().addChild(node);
+    }
+}
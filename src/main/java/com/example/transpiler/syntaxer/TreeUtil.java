@@ -6,6 +6,7 @@ import com.example.transpiler.typeChecker.TypeChecker;
 import com.example.transpiler.typeChecker.TypeCheckerException;
 import com.example.transpiler.util.Pair;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -139,19 +140,28 @@ public class TreeUtil {
             .getValue();
     }
 
+    /**
+     * @param tree compact tree
+     * @param node index of a class declaration
+     * @return name of the class
+     */
+    public String getClassNameForClassDeclarationNode(CompactTree tree, int node) {
+        if (tree.kind(node) != FormalGrammar.CLASS_DECLARATION) {
+            throw new CompilationException("Analysed node is not a class declaration node");
+        }
+        int className = tree.firstChild(node, FormalGrammar.CLASS_NAME);
+        if (className == CompactTree.NONE) {
+            throw new CompilationException("Wrong AST construction");
+        }
+        return tree.value(tree.firstChild(className));
+    }
+
     public List<Assignment> assignmentsFromNodes(List<Node> assignments) {
         List<Assignment> declaredAssignments = new ArrayList<>();
         assignments.forEach(assignment ->
                             {
                                 String varName = assignment.getChildNodes().get(0).getValue();
-                                String expression;
-                                if (assignment.getChildNodes().get(1).getType().equals(FormalGrammar.EXPRESSION)) {
-                                    expression = expressionTypeToString(assignment.getChildNodes().get(1));
-                                } else {
-                                    List<Node> children = assignment.getChildNodes().get(1).getChildNodes();
-                                    expression = expressionTypeToString(children.get(0)) + " " +
-                                        children.get(1).getValue() + " " + expressionTypeToString(children.get(2));
-                                }
+                                String expression = operandToString(assignment.getChildNodes().get(1));
                                 declaredAssignments.add(new Assignment(
                                     varName,
                                     expression,
@@ -161,6 +171,24 @@ public class TreeUtil {
         return declaredAssignments;
     }
 
+    /**
+     * @param node EXPRESSION or MATH_EXPRESSION node
+     * @return expression as "left operation right", nested operations are parenthesized
+     */
+    public String operandToString(Node node) {
+        if (node.getType() != FormalGrammar.MATH_EXPRESSION) {
+            return expressionTypeToString(node);
+        }
+        List<Node> children = node.getChildNodes();
+        return nestedOperandToString(children.get(0)) + " " + children.get(1).getValue() + " "
+            + nestedOperandToString(children.get(2));
+    }
+
+    private String nestedOperandToString(Node node) {
+        String operand = operandToString(node);
+        return node.getType() == FormalGrammar.MATH_EXPRESSION ? "(" + operand + ")" : operand;
+    }
+
     public String expressionTypeToString(Node node) {
         if (node.getType() != FormalGrammar.EXPRESSION) {
             throw new CompilationException("Analysed node is not a statement node");
@@ -229,24 +257,13 @@ public class TreeUtil {
         return parameters;
     }
 
+    /**
+     * @param tree tree to search
+     * @param filters node kinds to find
+     * @return nodes of any of the kinds in document order, taken from the kind index of the tree
+     */
     public List<Node> inOrderSearch(Tree tree, List<FormalGrammar> filters) {
-        filteredNodes = new ArrayList<>();
-
-        findFilters(tree.getRoot(), filters);
-
-        return filteredNodes;
-    }
-
-    private List<Node> filteredNodes;
-
-    public void findFilters(Node node, List<FormalGrammar> filters) {
-        if (filters.contains(node.getType())) {
-            filteredNodes.add(node);
-        }
-        List<Node> childNodes = node.getChildNodes();
-        for (Node childNode : childNodes) {
-            findFilters(childNode, filters);
-        }
+        return tree.nodesOfKinds(filters);
     }
 
     public List<VariableDeclaration> getVariableDeclarationsFromNodes(List<Node> nodes) {
@@ -291,21 +308,14 @@ public class TreeUtil {
     }
 
     public CheckUnit getAllVariablesForProgram(Tree tree) {
-        List<Node> nodesForCheck = inOrderSearch(tree,
-                                                 List.of(FormalGrammar.ASSIGNMENT, FormalGrammar.VARIABLE_DECLARATION));
-        List<VariableDeclaration> declarations = getVariableDeclarationsFromNodes(nodesForCheck.stream()
-                                                                                      .filter(isVariableDeclaration)
-                                                                                      .toList());
-        List<Assignment> assignments = assignmentsFromNodes(nodesForCheck.stream()
-                                                                .filter(isAssignment)
-                                                                .toList());
+        List<VariableDeclaration> declarations = getVariableDeclarationsFromNodes(
+            tree.nodesOfKind(FormalGrammar.VARIABLE_DECLARATION));
+        List<Assignment> assignments = assignmentsFromNodes(tree.nodesOfKind(FormalGrammar.ASSIGNMENT));
         return new CheckUnit(assignments, declarations);
     }
 
-    private static List<Method> classMethods;
-
     public List<Method> getClassMethods(Node classNode) {
-        classMethods = new ArrayList<>();
+        List<Method> classMethods = new ArrayList<>();
         for (Node node : classNode.getChildNodes()) {
             if (node.getType() == FormalGrammar.MEMBER_DECLARATION) {
                 if (node.getChildNodes().get(0).getType() == FormalGrammar.METHOD_DECLARATION) {
@@ -355,42 +365,87 @@ public class TreeUtil {
      * @return list of all types met in our tree (e.g. main class name + class name for all nested classes )
      */
     public List<String> getAllTypesForTree(Tree tree) {
-        List<Node> classNodes = inOrderSearch(tree, List.of(FormalGrammar.CLASS_DECLARATION));
-        return classNodes.stream().map(TreeUtil::getClassNameForClassDeclarationNode).toList();
+        return tree.nodesOfKind(FormalGrammar.CLASS_DECLARATION).stream().map(TreeUtil::getClassNameForClassDeclarationNode).toList();
+    }
+
+    /**
+     * @param tree compact tree containing possible types
+     * @return list of all types met in the tree, scanning node kinds without walking the tree
+     */
+    public List<String> getAllTypesForTree(CompactTree tree) {
+        return tree.nodesOfKind(FormalGrammar.CLASS_DECLARATION).stream()
+            .map(node -> getClassNameForClassDeclarationNode(tree, node))
+            .toList();
     }
 
 
     /**
-     *
-     * @param tree
-     * @param node
-     * @return scope for node in tree
+     * Links the tree on the first lookup, after that a lookup is a map lookup
+     * @param tree tree containing the node
+     * @param node node of the tree
+     * @return closest method, constructor or class declaration enclosing the node, null at the top level
+     *          or if the node is not in the tree
      */
     public Node getNodeScope(Tree tree, Node node) {
-        return findNodeScope(tree.getRoot(), node, null);
+        return tree.scopeOf(node);
     }
 
-    public Node findNodeScope(Node n, Node s, Node currentScope) {
-        if (n == s) {
-            return currentScope;
-        } else {
-            List<FormalGrammar> declarations = List.of(
-                FormalGrammar.METHOD_DECLARATION,
-                FormalGrammar.CLASS_DECLARATION,
-                FormalGrammar.CONSTRUCTOR_DECLARATION
-            );
-            if (declarations.contains(n.getType())) {
-                currentScope = n;
-            }
+    /**
+     * Compares subtrees without recursion, nodes themselves are equal only to themselves
+     * @param first root of a subtree
+     * @param second root of another subtree
+     * @return true if both subtrees have the same types, values and shape
+     */
+    public boolean sameStructure(Node first, Node second) {
+        StructureComparison comparison = new StructureComparison(second);
+        TreeWalker.walk(first, comparison);
+        return comparison.same;
+    }
 
-            for (Node child : n.getChildNodes()) {
-                Node result = findNodeScope(child, s, currentScope);
-                if (result != null) {
-                    return result;
-                }
+    /**
+     * Follows a walk of one subtree in the other subtree, the counterparts of the entered nodes are on a stack
+     */
+    private static class StructureComparison implements NodeVisitor {
+
+        private final Node other;
+        private final ArrayDeque<Node> counterparts = new ArrayDeque<>();
+        // index of the next child of every counterpart on the stack
+        private final ArrayDeque<Integer> nextChildren = new ArrayDeque<>();
+        private boolean same = true;
+
+        private StructureComparison(Node other) {
+            this.other = other;
+        }
+
+        @Override
+        public boolean enter(Node node) {
+            if (!same) {
+                return false;
+            }
+            Node counterpart = other;
+            if (!counterparts.isEmpty()) {
+                int next = nextChildren.pop();
+                counterpart = counterparts.peek().getChildNodes().get(next);
+                nextChildren.push(next + 1);
+            }
+            if (node == counterpart) {
+                return false;
             }
+            if (node.getType() != counterpart.getType() || !Objects.equals(node.getValue(), counterpart.getValue())
+                || node.getChildNodes().size() != counterpart.getChildNodes().size()) {
+                same = false;
+                return false;
+            }
+            counterparts.push(counterpart);
+            nextChildren.push(0);
+            return true;
+        }
+
+        @Override
+        public void exit(Node node) {
+            counterparts.pop();
+            nextChildren.pop();
         }
-        return null;
     }
 
     /**
@@ -460,8 +515,19 @@ public class TreeUtil {
      * @return method declaration entity with given name from provided tree
      */
     public Node getMethodDeclarationNodeByMethodName(String name, Tree tree) {
-        methodDeclarations = new ArrayList<>();
-        searchMethods(tree.getRoot(), name);
+        List<Node> methodDeclarations = new ArrayList<>();
+        for (Node method : tree.nodesOfKind(FormalGrammar.METHOD_DECLARATION)) {
+            if (Objects.equals(method.getChildNodes().get(0).getValue(), name)) {
+                methodDeclarations.add(method);
+            }
+        }
+        for (Node function : tree.nodesOfKind(FormalGrammar.FUNCTION_DECLARATION)) {
+            // functions declared in method bodies are local to the method
+            if (tree.scopeOf(function).getType() != FormalGrammar.METHOD_DECLARATION
+                && Objects.equals(function.getChildNodes().get(2).getValue(), name)) {
+                methodDeclarations.add(function);
+            }
+        }
         if (methodDeclarations.size() > 1) {
             throw new CompilationException("Duplicated method declarations detected. Overloading is not supported.");
         } else if (methodDeclarations.isEmpty()) {
@@ -471,24 +537,6 @@ public class TreeUtil {
         }
     }
 
-    public List<Node> methodDeclarations;
-
-    public void searchMethods(Node node, String name) {
-        if (node.getType().equals(FormalGrammar.METHOD_DECLARATION) || node.getType()
-            .equals(FormalGrammar.FUNCTION_DECLARATION)) {
-            int index = node.getType().equals(FormalGrammar.METHOD_DECLARATION) ? 0 : 2;
-            if (Objects.equals(node.getChildNodes().get(index).getValue(), name)) {
-                methodDeclarations.add(node);
-            }
-            return;
-        }
-
-        List<Node> childNodes = node.getChildNodes();
-        for (Node childNode : childNodes) {
-            searchMethods(childNode, name);
-        }
-    }
-
     /**
      *
      * @param node
@@ -516,43 +564,29 @@ public class TreeUtil {
             currentScope = TreeUtil.getMainClassNode(tree);
         }
         do {
-            result = findVariableDeclarationNodeInScopeByName(name, currentScope);
+            result = findVariableDeclarationNodeInScopeByName(name, currentScope, tree);
             if (result == null) {
                 currentScope = getNodeScope(tree, currentScope);
                 break;
             }
         } while (result == null && !currentScope.getType().equals(FormalGrammar.CLASS_DECLARATION));
 
-        variableDeclarations = new ArrayList<>();
-        parameterDeclarations = new ArrayList<>();
-
-        searchParameters(currentScope, name);
-        if (!parameterDeclarations.isEmpty()) {
-            return parameterDeclarations.get(0);
-        }
-
-        searchVariables(currentScope, name);
-        if (!variableDeclarations.isEmpty()) {
-            return variableDeclarations.get(0);
-        } else {
-            return null;
+        Node parameter = findDeclaration(tree, currentScope, FormalGrammar.PARAMETER_DECLARATION, name);
+        if (parameter != null) {
+            return parameter;
         }
+        return findDeclaration(tree, currentScope, FormalGrammar.VARIABLE_DECLARATION, name);
     }
 
-    public List<Node> variableDeclarations;
-    public List<Node> parameterDeclarations;
-
     /**
      *
      * @param name
      * @param scope
+     * @param tree tree containing the scope
      * @return variable/parameter declaration for given name inside provided tree starting from inner scope
      *          and then going to CLASS_DECLARATION node if not found earlier
      */
-    public Node findVariableDeclarationNodeInScopeByName(String name, Node scope) {
-        variableDeclarations = new ArrayList<>();
-        parameterDeclarations = new ArrayList<>();
-
+    public Node findVariableDeclarationNodeInScopeByName(String name, Node scope, Tree tree) {
         if (Objects.isNull(scope)) {
             throw new TypeCheckerException("No variable with name " + name);
         }
@@ -560,65 +594,40 @@ public class TreeUtil {
         // if scope is a method - check parameters first
         if (scope.getType() == FormalGrammar.METHOD_DECLARATION
             || scope.getType() == FormalGrammar.CONSTRUCTOR_DECLARATION) {
-            searchParameters(scope, name);
-            if (parameterDeclarations.isEmpty()) {
-                searchVariables(scope, name);
-                if (variableDeclarations.isEmpty()) {
-                    return null;
-                } else {
-                    return variableDeclarations.get(0);
-                }
-            } else {
-                return parameterDeclarations.get(0);
+            Node parameter = findDeclaration(tree, scope, FormalGrammar.PARAMETER_DECLARATION, name);
+            if (parameter != null) {
+                return parameter;
             }
+            return findDeclaration(tree, scope, FormalGrammar.VARIABLE_DECLARATION, name);
         }
         if (scope.getType() == FormalGrammar.CLASS_DECLARATION) {
-            searchVariables(scope, name);
-            if (variableDeclarations.isEmpty()) {
-                return null;
-            } else {
-                return variableDeclarations.get(0);
-            }
+            return findDeclaration(tree, scope, FormalGrammar.VARIABLE_DECLARATION, name);
         } else {
             return null;
         }
     }
 
-    //........................................................................//
     /**
-     *
-     * @param name
-     * @param node
-     * @return fill the variable appearence in node by its declarations
-     *
+     * @param tree tree containing the scope, a scope of another tree is walked instead of using the index
+     * @param scope node to search in, nested scopes included
+     * @param kind VARIABLE_DECLARATION or PARAMETER_DECLARATION
+     * @param name declared name
+     * @return first declaration of the kind with the name in document order, null if there is none
      */
-
-    public void searchVariables(Node node, String name) {
-        if (node.getType().equals(FormalGrammar.VARIABLE_DECLARATION)) {
-            if (Objects.equals(node.getChildNodes().get(0).getValue(), name)) {
-                variableDeclarations.add(node);
-            }
-            return;
-        }
-
-        List<Node> childNodes = node.getChildNodes();
-        for (Node childNode : childNodes) {
-            searchVariables(childNode, name);
+    private Node findDeclaration(Tree tree, Node scope, FormalGrammar kind, String name) {
+        List<Node> declarations;
+        if (tree.nodeId(scope) != Tree.NONE) {
+            declarations = tree.nodesOfKind(scope, kind);
+        } else {
+            declarations = new ArrayList<>();
+            TreeWalker.collect(scope, node -> node.getType() == kind, declarations);
         }
-    }
-
-    public void searchParameters(Node node, String name) {
-        if (node.getType().equals(FormalGrammar.PARAMETER_DECLARATION)) {
-            if (node.getChildNodes().get(0).getValue().equals(name)) {
-                parameterDeclarations.add(node);
+        for (Node declaration : declarations) {
+            if (Objects.equals(declaration.getChildNodes().get(0).getValue(), name)) {
+                return declaration;
             }
-            return;
-        }
-
-        List<Node> childNodes = node.getChildNodes();
-        for (Node childNode : childNodes) {
-            searchParameters(childNode, name);
         }
+        return null;
     }
 
     public FirstClassFunction getFunctionFromDeclarationNode(Node node) {
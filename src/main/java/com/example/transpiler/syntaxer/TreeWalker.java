@@ -0,0 +1,65 @@
+package com.example.transpiler.syntaxer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Traversals of {@link Node} subtrees without recursion, any nesting depth fits in the heap.
+ * Results go to visitors and sinks owned by the caller, so any number of threads can walk at once.
+ */
+@UtilityClass
+public class TreeWalker {
+
+    /**
+     * Visits the subtree in document order, the path from the root to the current node is kept in two arrays
+     * @param root root of the subtree
+     * @param visitor receives every node of the subtree except the children of nodes it skips
+     */
+    public void walk(Node root, NodeVisitor visitor) {
+        if (!visitor.enter(root)) {
+            return;
+        }
+        Node[] path = new Node[16];
+        // index of the next child to visit of every node on the path
+        int[] nextChildren = new int[16];
+        path[0] = root;
+        int depth = 1;
+        while (depth > 0) {
+            Node node = path[depth - 1];
+            List<Node> children = node.getChildNodes();
+            if (nextChildren[depth - 1] == children.size()) {
+                path[--depth] = null;
+                visitor.exit(node);
+                continue;
+            }
+            Node child = children.get(nextChildren[depth - 1]++);
+            if (!visitor.enter(child)) {
+                continue;
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                nextChildren = Arrays.copyOf(nextChildren, depth * 2);
+            }
+            path[depth] = child;
+            nextChildren[depth] = 0;
+            depth++;
+        }
+    }
+
+    /**
+     * @param root root of the subtree
+     * @param filter nodes to collect
+     * @param sink collection receiving the matching nodes of the subtree in document order
+     */
+    public void collect(Node root, Predicate<Node> filter, Collection<? super Node> sink) {
+        walk(root, node -> {
+            if (filter.test(node)) {
+                sink.add(node);
+            }
+            return true;
+        });
+    }
+}
@@ -4,15 +4,15 @@ import com.example.transpiler.codeGenerator.model.Assignment;
 import com.example.transpiler.codeGenerator.model.JavaType;
 import com.example.transpiler.codeGenerator.model.Variable;
 import com.example.transpiler.codeGenerator.model.VariableDeclaration;
+import com.example.transpiler.lexer.LiteralType;
 import com.example.transpiler.syntaxer.FormalGrammar;
 import com.example.transpiler.syntaxer.Node;
 import com.example.transpiler.syntaxer.Tree;
 import com.example.transpiler.syntaxer.TreeUtil;
 import com.example.transpiler.util.Pair;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -37,8 +37,6 @@ public class TypeChecker {
     // all type from all trees
     public List<String> knownTypes = new ArrayList<>();
     private Tree currentTree;
-    // regex for real/integer values
-    private final String NUMBER = "^(?=.)([+-]?([0-9]*)(\\.([0-9]+))?)$";
 
     public void check(Tree tree) {
         currentTree = tree;
@@ -138,8 +136,12 @@ public class TypeChecker {
             return typeForExpressionWithOperation(variableExpression, debtVariable);
         }
 
-        if (variableExpression.getWholeExpression().matches(NUMBER)) {
-            return typeForDigits(variableExpression.getWholeExpression());
+        Node expressionNode = variableExpression.isAssignment()
+            ? variableExpression.getAssignmentNode().getChildNodes().get(1)
+            : debtVariable.getDeclarationNode().getChildNodes().get(1);
+        String literalType = typeForLiteral(expressionNode);
+        if (literalType != null) {
+            return literalType;
         }
 
         if (isAnotherTreeSearch(variableExpression.getTerm())) {
@@ -175,7 +177,8 @@ public class TypeChecker {
                 variableExpression.isAssignment()
                     ? variableExpression.getAssignmentNode()
                     : debtVariable.getDeclarationNode()
-            )
+            ),
+            debtVariable.getTree()
         );
 
         if (Objects.isNull(termDeclaration)) {
@@ -242,11 +245,15 @@ public class TypeChecker {
 
     /**
      *
-     * @param expression
-     * @return integer/real type for provided number
+     * @param expression EXPRESSION node
+     * @return Integer or Real if the expression starts with a literal, as classified by the lexer, null otherwise
      */
-    private String typeForDigits(String expression) {
-        return expression.contains(".") ? "Real" : "Integer";
+    private String typeForLiteral(Node expression) {
+        LiteralType literalType = expression.getChildNodes().get(0).getLiteralType();
+        if (literalType == null) {
+            return null;
+        }
+        return literalType == LiteralType.REAL ? "Real" : "Integer";
     }
 
     /**
@@ -257,56 +264,29 @@ public class TypeChecker {
      */
     private String typeForExpressionWithOperation(VariableExpression variableExpression,
                                                   DebtVariable debtVariable) {
-        Tree tree = debtVariable.getTree();
+        Node assignmentNode = variableExpression.getAssignmentNode();
+        return typeForOperation(assignmentNode.getChildNodes().get(1), debtVariable.getTree(), assignmentNode);
+    }
+
+    /**
+     *
+     * @param operation MATH_EXPRESSION node with operands which are expressions or operations themselves
+     * @param tree tree of the expression
+     * @param assignmentNode node of the expression used to find its scope
+     * @return type of the expression
+     */
+    private String typeForOperation(Node operation, Tree tree, Node assignmentNode) {
         List<String> boolOperations = List.of("==", ">=", ">", "<=", "<");
         List<String> valueOperations = List.of("+", "-", "/", "*");
-        List<String> operations = Stream.of(boolOperations, valueOperations)
-            .flatMap(Collection::stream)
-            .toList();
-        String operation = operations.stream()
-            .filter(op -> variableExpression.getWholeExpression().contains(op))
-            .findFirst()
-            .orElseThrow(
-                () -> new TypeCheckerException(
-                    "No valid operation provided for expression " + variableExpression.getWholeExpression())
-            );
-        String[] expressions = variableExpression.getWholeExpression().split(" ");
-
-        TypeRecursiveDefinitionDto first = getTypeRecursiveDefinitionDto(expressions[0]);
-        TypeRecursiveDefinitionDto second = getTypeRecursiveDefinitionDto(expressions[2]);
-
-        if (Objects.isNull(first.getTree())) {
-            first.setTree(tree);
-        }
-        if (Objects.isNull(second.getTree())) {
-            second.setTree(tree);
+        List<Node> children = operation.getChildNodes();
+        String operator = children.get(1).getValue();
+        if (!boolOperations.contains(operator) && !valueOperations.contains(operator)) {
+            throw new TypeCheckerException(
+                "No valid operation provided for expression " + TreeUtil.operandToString(operation));
         }
 
-        String firstType = getTypeRecursively(
-            first.getTerm(),
-            first.getType().equals(ExpressionResult.METHOD) ?
-                TreeUtil.getMethodDeclarationNodeByMethodName(first.getTerm(), first.getTree()) :
-                TreeUtil.getVariableDeclarationByVariableName(first.getTerm(),
-                                                              TreeUtil.getNodeScope(first.getTree(),
-                                                                                    variableExpression.getAssignmentNode()),
-                                                              first.getTree()
-                ),
-            first.getExpression(),
-            first.getTree()
-        );
-
-        String secondType = getTypeRecursively(
-            second.getTerm(),
-            second.getType().equals(ExpressionResult.METHOD) ?
-                TreeUtil.getMethodDeclarationNodeByMethodName(second.getTerm(), second.getTree()) :
-                TreeUtil.getVariableDeclarationByVariableName(second.getTerm(),
-                                                              TreeUtil.getNodeScope(second.getTree(),
-                                                                                    variableExpression.getAssignmentNode()),
-                                                              second.getTree()
-                ),
-            second.getExpression(),
-            second.getTree()
-        );
+        String firstType = typeForOperand(children.get(0), tree, assignmentNode);
+        String secondType = typeForOperand(children.get(2), tree, assignmentNode);
 
         Set<String> set = new HashSet<>();
         set.add(firstType.toUpperCase(Locale.ROOT));
@@ -317,20 +297,52 @@ public class TypeChecker {
                 && !set.equals(Set.of("INTEGER", "REAL"))
         ) {
             throw new TypeCheckerException(
-                "Trying to apply operation \"" + operation + "\" to types: " + firstType + " & " + secondType);
+                "Trying to apply operation \"" + operator + "\" to types: " + firstType + " & " + secondType);
         }
 
-        if (boolOperations.contains(operation)) {
+        if (boolOperations.contains(operator)) {
             return "Boolean";
         } else {
             if (Stream.of("Real", "Char", "Integer", "String").anyMatch(x -> x.equalsIgnoreCase(firstType))) {
                 return firstType;
             } else {
                 throw new TypeCheckerException(
-                    "Trying to apply " + operation + " to entities of non-comparable type: " + firstType);
+                    "Trying to apply " + operator + " to entities of non-comparable type: " + firstType);
             }
         }
+    }
 
+    /**
+     *
+     * @param operand EXPRESSION or MATH_EXPRESSION node
+     * @param tree tree of the expression
+     * @param assignmentNode node of the expression used to find its scope
+     * @return type of the operand
+     */
+    private String typeForOperand(Node operand, Tree tree, Node assignmentNode) {
+        if (operand.getType() == FormalGrammar.MATH_EXPRESSION) {
+            return typeForOperation(operand, tree, assignmentNode);
+        }
+        String literalType = typeForLiteral(operand);
+        if (literalType != null) {
+            return literalType;
+        }
+        TypeRecursiveDefinitionDto definition = getTypeRecursiveDefinitionDto(TreeUtil.expressionTypeToString(operand));
+        if (Objects.isNull(definition.getTree())) {
+            definition.setTree(tree);
+        }
+        return getTypeRecursively(
+            definition.getTerm(),
+            definition.getType().equals(ExpressionResult.METHOD) ?
+                TreeUtil.getMethodDeclarationNodeByMethodName(definition.getTerm(), definition.getTree()) :
+                TreeUtil.getVariableDeclarationByVariableName(definition.getTerm(),
+                                                              TreeUtil.getNodeScope(definition.getTree(),
+                                                                                    assignmentNode),
+                                                              definition.getTree()
+                ),
+            definition.getExpression(),
+            definition.getTree()
+        );
     }
 
     /**
@@ -339,8 +351,9 @@ public class TypeChecker {
      * @return true if our expression is a math expression
      */
     private boolean isOperationIncluded(VariableExpression variableExpression) {
-        List<String> operations = List.of("+", "-", "/", "==", ">=", ">", "<=", "<", "*");
-        return operations.stream().anyMatch(op -> variableExpression.getWholeExpression().contains(op));
+        Node assignmentNode = variableExpression.getAssignmentNode();
+        return assignmentNode != null
+            && assignmentNode.getChildNodes().get(1).getType() == FormalGrammar.MATH_EXPRESSION;
     }
 
     /**
@@ -353,13 +366,6 @@ public class TypeChecker {
      */
     private String getTypeRecursively(String term, Node termDeclaration, String wholeExpression, Tree tree) {
 
-        if (
-            term.matches(NUMBER) ||
-                wholeExpression.matches(NUMBER)) {
-
-            return typeForDigits(wholeExpression);
-        }
-
         String type;
 
         if (Objects.isNull(termDeclaration)) {
@@ -423,6 +429,10 @@ public class TypeChecker {
                 }
             }
             case VARIABLE_DECLARATION -> {
+                String literalType = typeForLiteral(termDeclaration.getChildNodes().get(1));
+                if (wholeExpression.isEmpty() && literalType != null) {
+                    return literalType;
+                }
                 if (wholeExpression.isEmpty()) {
                     VariableDeclaration declaration = TreeUtil.getVariableDeclarationsFromNodes(
                         List.of(termDeclaration)).get(0);
@@ -619,7 +629,7 @@ public class TypeChecker {
      * @param assignments
      */
     private void checkVariableAgainstAssignments(Variable variable, List<Assignment> assignments) {
-        Map<Node, String> expressionWithNodeMap = new HashMap<>();
+        Map<Node, String> expressionWithNodeMap = new LinkedHashMap<>();
         assignments.forEach(assignment -> expressionWithNodeMap.put(
             assignment.getNode(),
             assignment.getExpression()
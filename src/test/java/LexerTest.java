@@ -1,11 +1,38 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import benchmark.LegacyLexer;
+import com.example.transpiler.lexer.AsciiSource;
 import com.example.transpiler.lexer.InvalidTokenException;
 import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.LiteralType;
+import com.example.transpiler.lexer.SourceEdit;
+import com.example.transpiler.lexer.SymbolTable;
+import com.example.transpiler.lexer.Token;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.lexer.TokenDelta;
+import com.example.transpiler.lexer.TokenStream;
 import com.example.transpiler.lexer.TokenType;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -111,4 +138,207 @@ class LexerTest {
         assertEquals(TokenType.KEYWORD, tokens.get(5).getType());
 
     }
+
+    @Test
+    void lexerMatchesLegacyTokenization() throws InvalidTokenException, IOException {
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            String program = getProgram(testNumber);
+            assertEquals(LegacyLexer.getTokensFromCode(program), Lexer.getTokensFromCode(program));
+        }
+    }
+
+    @Test
+    void lexerTokenBufferPositions() throws InvalidTokenException, IOException {
+        String program = getProgram(1);
+        TokenBuffer tokens = Lexer.tokenize(program);
+        assertEquals(Lexer.getTokensFromCode(program), tokens.toTokens());
+        assertEquals(TokenType.IDENTIFIER, tokens.type(3));
+        assertEquals(8, tokens.start(3));
+        assertEquals(5, tokens.length(3));
+        assertEquals(1, tokens.line(3));
+        assertEquals(9, tokens.column(3));
+        assertEquals("a", tokens.lexeme(10));
+        assertEquals(6, tokens.line(10));
+        assertEquals(1, tokens.column(10));
+    }
+
+    @Test
+    void lexerInternsSymbols() throws InvalidTokenException, IOException {
+        TokenBuffer first = Lexer.tokenize(getProgram(2));
+        TokenBuffer second = Lexer.tokenize(getProgram(3));
+        assertEquals(SymbolTable.VAR, first.symbol(0));
+        assertEquals(SymbolTable.WHILE, first.symbol(4));
+        assertEquals(first.symbol(1), second.symbol(1));
+        assertSame(first.lexeme(1), second.lexeme(1));
+        assertEquals(SymbolTable.NO_SYMBOL, first.symbol(3));
+    }
+
+    @Test
+    void lexerClassifiesLiterals() {
+        TokenBuffer tokens = Lexer.tokenize("x := 15.Plus(2.75)");
+        assertEquals(LiteralType.INTEGER, tokens.literalType(3));
+        assertEquals(TokenType.OPERATOR, tokens.type(4));
+        assertEquals(LiteralType.REAL, tokens.literalType(7));
+        assertEquals("2.75", tokens.lexeme(7));
+        assertNull(tokens.literalType(0));
+        InvalidTokenException exception = assertThrows(InvalidTokenException.class, () -> Lexer.tokenize("x := 1a"));
+        assertEquals("1a", exception.getLexeme());
+    }
+
+    @Test
+    void lexerStreamMatchesTokenize() throws InvalidTokenException, IOException {
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            String program = getProgram(testNumber);
+            try (TokenStream stream = new TokenStream(new StringReader(program), 7, 4)) {
+                assertEquals(Lexer.getTokensFromCode(program).get(3), stream.peek(3));
+                List<Token> tokens = stream.stream().toList();
+                assertEquals(Lexer.getTokensFromCode(program), tokens);
+            }
+        }
+    }
+
+    @Test
+    void lexerReadsFilesAsAscii() throws InvalidTokenException, IOException, URISyntaxException {
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            Path path = Path.of(getClass().getClassLoader()
+                .getResource("test_data_lexer/test" + testNumber + ".txt").toURI());
+            assertEquals(Lexer.getTokensFromCode(getProgram(testNumber)), Lexer.tokenize(path).toTokens());
+        }
+        Path file = Files.createTempFile("lexer", ".txt");
+        try {
+            Files.writeString(file, "var \u00e9t\u00e9 : Integer");
+            InvalidTokenException exception = assertThrows(InvalidTokenException.class, () -> Lexer.tokenize(file));
+            assertEquals("\u00e9t\u00e9", exception.getLexeme());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void lexerIsSafeForConcurrentUse() throws Exception {
+        List<String> programs = new ArrayList<>();
+        List<List<Token>> expected = new ArrayList<>();
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            programs.add(getProgram(testNumber));
+            expected.add(Lexer.getTokensFromCode(programs.get(testNumber - 1)));
+        }
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadNumber = thread;
+                Callable<Boolean> task = () -> {
+                    start.await();
+                    for (int round = 0; round < 200; round++) {
+                        int testNumber = (threadNumber + round) % programs.size();
+                        // a fresh identifier per round makes threads intern new symbols concurrently
+                        String identifier = "fresh" + threadNumber + "x" + round;
+                        TokenBuffer tokens = Lexer.tokenize(programs.get(testNumber) + "\nvar " + identifier + " : Integer");
+                        List<Token> prefix = tokens.toTokens().subList(0, tokens.size() - 4);
+                        int last = tokens.size() - 3;
+                        if (!prefix.equals(expected.get(testNumber))
+                                || !identifier.equals(SymbolTable.name(tokens.symbol(last)))
+                                || tokens.symbol(last) != SymbolTable.intern(identifier)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void lexerRelexesEdits() throws InvalidTokenException, IOException {
+        List<String> insertions = List.of("", "x", " ", ";\n", "\n  var y : Integer", "1.5", ".");
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            String program = getProgram(testNumber);
+            TokenBuffer previous = Lexer.tokenize(program);
+            for (int offset = 0; offset <= program.length(); offset++) {
+                for (int removed = 0; removed <= Math.min(3, program.length() - offset); removed++) {
+                    for (String inserted : insertions) {
+                        SourceEdit edit = new SourceEdit(offset, removed, inserted);
+                        String edited = program.substring(0, offset) + inserted + program.substring(offset + removed);
+                        TokenBuffer expected;
+                        try {
+                            expected = Lexer.tokenize(edited);
+                        } catch (InvalidTokenException e) {
+                            assertThrows(InvalidTokenException.class, () -> Lexer.relex(previous, edit));
+                            continue;
+                        }
+                        TokenDelta delta = Lexer.relex(previous, edit);
+                        assertSameTokens(expected, delta.getTokens());
+                        assertEquals(previous.size() - delta.getRemovedCount() + delta.getInsertedCount(), expected.size());
+                        int unchangedTail = previous.size() - delta.getFirstChanged() - delta.getRemovedCount();
+                        for (int index = 0; index < unchangedTail; index++) {
+                            assertEquals(previous.token(previous.size() - 1 - index), expected.token(expected.size() - 1 - index));
+                        }
+                    }
+                }
+            }
+        }
+        TokenDelta delta = Lexer.relex(Lexer.tokenize("var a : Integer;\nvar b : Real"), new SourceEdit(4, 1, "abc"));
+        assertEquals(1, delta.getFirstChanged());
+        assertEquals(1, delta.getRemovedCount());
+        assertEquals(1, delta.getInsertedCount());
+    }
+
+    private void assertSameTokens(TokenBuffer expected, TokenBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.token(index), actual.token(index));
+            assertEquals(expected.symbol(index), actual.symbol(index));
+            assertEquals(expected.literalType(index), actual.literalType(index));
+            assertEquals(expected.start(index), actual.start(index));
+            assertEquals(expected.length(index), actual.length(index));
+            assertEquals(expected.line(index), actual.line(index));
+            assertEquals(expected.column(index), actual.column(index));
+        }
+    }
+
+    @Test
+    void lexerTokenizesInParallel() throws InvalidTokenException, IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int copy = 0; copy < 400; copy++) {
+            builder.append(getProgram(copy % 8 + 1)).append("\n\n");
+        }
+        String program = builder.toString();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSameTokens(Lexer.tokenize(program), Lexer.tokenizeParallel(program, pool));
+            String invalid = program.substring(0, program.length() / 2) + " 1a " + program.substring(program.length() / 2) + " 2b";
+            InvalidTokenException exception = assertThrows(InvalidTokenException.class,
+                () -> Lexer.tokenizeParallel(invalid, pool));
+            assertEquals("1a", exception.getLexeme());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void lexerScansWithVectors() throws InvalidTokenException, IOException {
+        assumeTrue(Lexer.isVectorScanningAvailable());
+        List<String> programs = new ArrayList<>();
+        for (int testNumber = 1; testNumber <= 8; testNumber++) {
+            programs.add(getProgram(testNumber));
+        }
+        programs.add("x := 12.5.Plus(3.)\n\n\t" + "y".repeat(150) + " := 1234567890123456789.25 ;;" + " ".repeat(70) + "z");
+        programs.add(" \n".repeat(100) + "end");
+        for (String program : programs) {
+            for (int padding = 0; padding < 70; padding++) {
+                String padded = " ".repeat(padding) + program;
+                AsciiSource source = new AsciiSource(ByteBuffer.wrap(padded.getBytes(StandardCharsets.US_ASCII)));
+                assertSameTokens(Lexer.tokenize(padded), Lexer.tokenizeVectorized(source));
+            }
+        }
+    }
 }
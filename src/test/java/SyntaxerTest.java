@@ -1,12 +1,52 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
-
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import benchmark.ProgramGenerator;
+import benchmark.Sources;
 import com.example.transpiler.lexer.InvalidTokenException;
 import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.LiteralType;
+import com.example.transpiler.lexer.SourceEdit;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.lexer.TokenDelta;
+import com.example.transpiler.syntaxer.CompactTree;
+import com.example.transpiler.syntaxer.CompactTreeBuilder;
+import com.example.transpiler.syntaxer.CompilationException;
+import com.example.transpiler.syntaxer.FormalGrammar;
 import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.Node;
+import com.example.transpiler.syntaxer.NodeVisitor;
+import com.example.transpiler.syntaxer.ParseListener;
+import com.example.transpiler.syntaxer.ParseResult;
+import com.example.transpiler.syntaxer.ParseStatistics;
+import com.example.transpiler.syntaxer.SyntaxError;
 import com.example.transpiler.syntaxer.Tree;
+import com.example.transpiler.syntaxer.TreeBuilder;
+import com.example.transpiler.syntaxer.TreeUtil;
+import com.example.transpiler.syntaxer.TreeWalker;
+import com.example.transpiler.util.Pair;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -22,6 +62,16 @@ class SyntaxerTest {
         return new String(inputStream.readAllBytes());
     }
 
+    /**
+     * @param name name of a tree in test_data_syntaxer, built by the backtracking parser the grammar checker replaced
+     */
+    private Tree getExpectedTree(String name) throws IOException {
+        InputStream inputStream = getClass().getClassLoader()
+            .getResourceAsStream(String.valueOf(Path.of("test_data_syntaxer", name + "Tree.json")));
+        assert inputStream != null;
+        return new ObjectMapper().readValue(inputStream, Tree.class);
+    }
+
     @Test
     void syntaxerTest01() throws InvalidTokenException, IOException {
         String program = getProgram(2);
@@ -263,4 +313,696 @@ class SyntaxerTest {
             log.error(exception.getMessage());
         }
     }
+
+    @Test
+    void syntaxerMatchesBacktrackingParser() throws InvalidTokenException, IOException {
+        for (int testNumber = 2; testNumber <= 5; testNumber++) {
+            var tokens = Lexer.getTokensFromCode(getProgram(testNumber));
+            assertSameTree(getExpectedTree("test" + testNumber), GrammarChecker.checkGrammar(tokens));
+        }
+        Tree tree = GrammarChecker.checkGrammar(Lexer.getTokensFromCode(Sources.nestedProgram(10)));
+        assertSameTree(getExpectedTree("nested"), tree);
+        assertEquals(1, tree.getRoot().getChildNodes().size());
+        var broken = Lexer.getTokensFromCode(Sources.nestedProgram(30).replace("x := 2", "x := := 2"));
+        assertThrows(CompilationException.class, () -> GrammarChecker.checkGrammar(broken));
+    }
+
+    @Test
+    void syntaxerParsesConcurrently() throws Exception {
+        List<TokenBuffer> programs = new ArrayList<>();
+        List<Tree> expected = new ArrayList<>();
+        for (int testNumber = 2; testNumber <= 5; testNumber++) {
+            programs.add(Lexer.tokenize(getProgram(testNumber)));
+        }
+        programs.add(Lexer.tokenize(Sources.nestedProgram(30)));
+        for (TokenBuffer tokens : programs) {
+            expected.add(new GrammarChecker(tokens).parse());
+        }
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadNumber = thread;
+                Callable<Boolean> task = () -> {
+                    start.await();
+                    for (int round = 0; round < 100; round++) {
+                        int program = (threadNumber + round) % programs.size();
+                        if (!TreeUtil.sameStructure(new GrammarChecker(programs.get(program)).parse().getRoot(),
+                            expected.get(program).getRoot())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void syntaxerParsesMembersInParallel() throws InvalidTokenException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TokenBuffer tokens = Lexer.tokenize(Sources.wideProgram(200) + Sources.wideProgram(3));
+            Tree tree = GrammarChecker.checkGrammarParallel(tokens, pool);
+            // workers are started only when members are submitted as tasks
+            assertTrue(pool.getPoolSize() > 0);
+            assertSameTree(GrammarChecker.checkGrammar(tokens), tree);
+            // class name, "limit" and the generated members
+            assertEquals(202, tree.getRoot().getChildNodes().get(0).getChildNodes().size());
+            // "this" in an expression looks like a constructor to the member scan
+            TokenBuffer ambiguous = Lexer.tokenize(Sources.wideProgram(50).replace("var limit : Integer", "var limit : this"));
+            assertSameTree(GrammarChecker.checkGrammar(ambiguous), GrammarChecker.checkGrammarParallel(ambiguous, pool));
+            TokenBuffer broken = Lexer.tokenize(Sources.wideProgram(50).replace("a.Div(2))", "a.Div(2)"));
+            assertThrows(CompilationException.class, () -> GrammarChecker.checkGrammarParallel(broken, pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void syntaxerReportsAllErrors() throws InvalidTokenException, IOException {
+        String program = "class Broken is\n"
+            + "  var first : Integer\n"
+            + "  var second : := 2\n"
+            + "  method run(a : Integer) : Integer is\n"
+            + "    while a < 3 loop\n"
+            + "      a := a.Plus(1\n"
+            + "    end\n"
+            + "  end\n"
+            + "  method ok : Integer is\n"
+            + "    return first\n"
+            + "  end\n"
+            + "  ; var third : Integer\n"
+            + "end\n"
+            + "class extends is end\n"
+            + "class Healthy is\n"
+            + "  var value : Integer\n"
+            + "end\n";
+        TokenBuffer tokens = Lexer.tokenize(program);
+        ParseResult result = GrammarChecker.checkGrammarRecovering(tokens);
+        List<SyntaxError> errors = result.getErrors();
+        assertEquals(4, errors.size());
+        assertEquals(3, errors.get(0).getLine());
+        assertEquals(16, errors.get(0).getColumn());
+        assertEquals("Expected identifier but found ':' at line 3, column 16", errors.get(0).getMessage());
+        assertEquals(7, errors.get(1).getLine());
+        assertEquals(12, errors.get(2).getLine());
+        assertEquals(14, errors.get(3).getLine());
+        // members and classes without errors are kept
+        List<Node> classes = result.getTree().getRoot().getChildNodes();
+        assertEquals(2, classes.size());
+        assertEquals(4, classes.get(0).getChildNodes().size());
+        assertEquals("Healthy", classes.get(1).getChildNodes().get(0).getChildNodes().get(0).getValue());
+        CompilationException exception = assertThrows(CompilationException.class, () -> GrammarChecker.checkGrammar(tokens));
+        assertEquals(errors.get(0).getMessage(), exception.getMessage());
+
+        for (int testNumber = 2; testNumber <= 5; testNumber++) {
+            TokenBuffer valid = Lexer.tokenize(getProgram(testNumber));
+            ParseResult validResult = GrammarChecker.checkGrammarRecovering(valid);
+            assertFalse(validResult.hasErrors());
+            assertSameTree(GrammarChecker.checkGrammar(valid), validResult.getTree());
+        }
+    }
+
+    @Test
+    void syntaxerReparsesEditedMembers() throws InvalidTokenException {
+        String program = Sources.wideProgram(30);
+        TokenBuffer tokens = Lexer.tokenize(program);
+        Tree tree = GrammarChecker.checkGrammar(tokens);
+        Random random = new Random(17);
+        String[] insertions = {"", " ", "x", ".Plus(1)", " + 2", "\n  var added : Integer\n", " end", "while"};
+        for (int step = 0; step < 400; step++) {
+            String source = tokens.getSource().toString();
+            int offset;
+            SourceEdit edit;
+            if (step == 0) {
+                // a statement inside of a method
+                offset = source.indexOf("x > 12");
+                edit = new SourceEdit(offset, 6, "x > a.Plus(12)");
+            } else if (step == 1) {
+                // a member of a nested class
+                offset = source.indexOf("value", source.indexOf("Inner19"));
+                edit = new SourceEdit(offset, 5, "other");
+            } else {
+                offset = random.nextInt(source.length());
+                int removed = random.nextInt(Math.min(8, source.length() - offset) + 1);
+                edit = new SourceEdit(offset, removed, insertions[random.nextInt(insertions.length)]);
+            }
+            TokenDelta delta;
+            try {
+                delta = Lexer.relex(tokens, edit);
+            } catch (InvalidTokenException e) {
+                continue;
+            }
+            Tree expected;
+            try {
+                expected = GrammarChecker.checkGrammar(delta.getTokens());
+            } catch (CompilationException e) {
+                Tree previous = tree;
+                assertThrows(CompilationException.class, () -> GrammarChecker.reparse(previous, delta));
+                continue;
+            }
+            Tree reparsed = GrammarChecker.reparse(tree, delta);
+            assertSameTree(expected, reparsed);
+            assertEquals(memberSpans(expected), memberSpans(reparsed));
+            if (step < 2) {
+                // members before the edit are shared with the previous tree
+                Node firstMember = tree.getRoot().getChildNodes().get(0).getChildNodes().get(1);
+                assertSame(firstMember, reparsed.getRoot().getChildNodes().get(0).getChildNodes().get(1));
+            }
+            tree = reparsed;
+            tokens = delta.getTokens();
+        }
+    }
+
+    private List<Pair<Integer, Integer>> memberSpans(Tree tree) {
+        List<Pair<Integer, Integer>> spans = new ArrayList<>();
+        collectMemberSpans(tree, tree.getRoot(), spans);
+        return spans;
+    }
+
+    private void collectMemberSpans(Tree tree, Node node, List<Pair<Integer, Integer>> spans) {
+        if (node.getType() == FormalGrammar.MEMBER_DECLARATION) {
+            spans.add(tree.getMemberSpans().get(node));
+        }
+        for (Node child : node.getChildNodes()) {
+            collectMemberSpans(tree, child, spans);
+        }
+    }
+
+    @Test
+    void syntaxerReportsRulesToListener() throws InvalidTokenException {
+        TokenBuffer tokens = Lexer.tokenize(Sources.wideProgram(30));
+        MethodNameCollector collector = new MethodNameCollector();
+        GrammarChecker.checkGrammar(tokens, collector);
+        assertEquals(27, collector.names.size());
+        assertEquals("run0", collector.names.get(0));
+        assertEquals("run28", collector.names.get(26));
+        assertEquals(0, collector.openRules);
+        assertSameTree(GrammarChecker.checkGrammar(tokens), collector.builder.getTree());
+
+        // a class cut off by the end of input is abandoned
+        TokenBuffer truncated = Lexer.tokenize(Sources.wideProgram(3) + "class Cut is\n");
+        MethodNameCollector truncatedCollector = new MethodNameCollector();
+        GrammarChecker.checkGrammar(truncated, truncatedCollector);
+        assertEquals(0, truncatedCollector.openRules);
+        assertSameTree(GrammarChecker.checkGrammar(truncated), truncatedCollector.builder.getTree());
+
+        // broken members are abandoned by a recovering parse
+        TokenBuffer broken = Lexer.tokenize(Sources.wideProgram(12).replace("a.Div(2))", "a.Div(2)"));
+        MethodNameCollector brokenCollector = new MethodNameCollector();
+        List<SyntaxError> errors = new GrammarChecker(broken).parseRecovering(brokenCollector);
+        ParseResult result = GrammarChecker.checkGrammarRecovering(broken);
+        assertEquals(result.getErrors(), errors);
+        assertEquals(0, brokenCollector.openRules);
+        assertSameTree(result.getTree(), brokenCollector.builder.getTree());
+    }
+
+    /**
+     * Collects names of methods and checks that rules are nested, forwards events to a tree builder
+     */
+    private static class MethodNameCollector implements ParseListener {
+
+        private final List<String> names = new ArrayList<>();
+        private final TreeBuilder builder = new TreeBuilder();
+        private final List<FormalGrammar> open = new ArrayList<>();
+        private int openRules;
+        private boolean methodName;
+
+        @Override
+        public void enterRule(FormalGrammar rule, String value) {
+            methodName = rule == FormalGrammar.METHOD_DECLARATION;
+            open.add(rule);
+            openRules++;
+            builder.enterRule(rule, value);
+        }
+
+        @Override
+        public void exitRule(FormalGrammar rule) {
+            assertEquals(open.remove(open.size() - 1), rule);
+            openRules--;
+            builder.exitRule(rule);
+        }
+
+        @Override
+        public void leaf(FormalGrammar type, String value) {
+            if (methodName && type == FormalGrammar.IDENTIFIER) {
+                names.add(value);
+            }
+            methodName = false;
+            builder.leaf(type, value);
+        }
+
+        @Override
+        public void abandonRules(int count) {
+            open.subList(open.size() - count, open.size()).clear();
+            openRules -= count;
+            builder.abandonRules(count);
+        }
+    }
+
+    @Test
+    void syntaxerCountsRuleAttempts() throws InvalidTokenException {
+        TokenBuffer tokens = Lexer.tokenize(Sources.wideProgram(30));
+        ParseStatistics statistics = new ParseStatistics();
+        GrammarChecker checker = new GrammarChecker(tokens);
+        checker.setStatistics(statistics);
+        checker.parse();
+        // "limit", the generated members and "value" of the nested classes
+        assertEquals(34, statistics.attempts(FormalGrammar.MEMBER_DECLARATION));
+        assertEquals(34, statistics.successes(FormalGrammar.MEMBER_DECLARATION));
+        assertEquals(0, statistics.failures(FormalGrammar.MEMBER_DECLARATION));
+        // "x < a + limit", "x > n" and "x * 2 + 1" in every method
+        assertEquals(27 * 5, statistics.attempts(FormalGrammar.MATH_EXPRESSION));
+        // nested classes are members of the outer class
+        assertEquals(3, statistics.maxDepth(FormalGrammar.CLASS_DECLARATION));
+        assertTrue(statistics.toJson().contains("\"MEMBER_DECLARATION\":{\"attempts\":34,\"successes\":34"));
+
+        ParseStatistics parallelStatistics = new ParseStatistics();
+        GrammarChecker parallelChecker = new GrammarChecker(tokens);
+        parallelChecker.setStatistics(parallelStatistics);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallelChecker.parse(pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(statistics.toJson(), parallelStatistics.toJson());
+
+        TokenBuffer broken = Lexer.tokenize(Sources.wideProgram(12).replace("a.Div(2))", "a.Div(2)"));
+        ParseStatistics recoveringStatistics = new ParseStatistics();
+        GrammarChecker recoveringChecker = new GrammarChecker(broken);
+        recoveringChecker.setStatistics(recoveringStatistics);
+        recoveringChecker.parseRecovering();
+        assertEquals(11, recoveringStatistics.failures(FormalGrammar.MEMBER_DECLARATION));
+        assertEquals(11, recoveringStatistics.removals(FormalGrammar.MEMBER_DECLARATION));
+        assertEquals(0, recoveringStatistics.removals(FormalGrammar.STATEMENT));
+        assertTrue(recoveringStatistics.failures(FormalGrammar.STATEMENT) > 0);
+        // parsing resumes at the next member, after the tokens of the broken one
+        assertEquals(0, recoveringStatistics.tokensRewound(FormalGrammar.MEMBER_DECLARATION));
+
+        ParseStatistics strictStatistics = new ParseStatistics();
+        GrammarChecker strictChecker = new GrammarChecker(broken);
+        strictChecker.setStatistics(strictStatistics);
+        assertThrows(CompilationException.class, strictChecker::parse);
+        assertEquals(1, strictStatistics.failures(FormalGrammar.CLASS_DECLARATION));
+        assertEquals(0, strictStatistics.removals(FormalGrammar.CLASS_DECLARATION));
+        // the error is reported at the start of the broken member
+        assertTrue(strictStatistics.tokensRewound(FormalGrammar.MEMBER_DECLARATION) > 0);
+
+        // a broken member makes the class parse again sequentially, members parsed in parallel are not counted
+        TokenBuffer wideBroken = Lexer.tokenize(Sources.wideProgram(30).replace("a.Div(2))", "a.Div(2)"));
+        ParseStatistics sequentialStatistics = new ParseStatistics();
+        GrammarChecker sequentialChecker = new GrammarChecker(wideBroken);
+        sequentialChecker.setStatistics(sequentialStatistics);
+        assertThrows(CompilationException.class, sequentialChecker::parse);
+        ParseStatistics parallelBrokenStatistics = new ParseStatistics();
+        GrammarChecker parallelBrokenChecker = new GrammarChecker(wideBroken);
+        parallelBrokenChecker.setStatistics(parallelBrokenStatistics);
+        ForkJoinPool brokenPool = new ForkJoinPool(4);
+        try {
+            assertThrows(CompilationException.class, () -> parallelBrokenChecker.parse(brokenPool));
+        } finally {
+            brokenPool.shutdownNow();
+        }
+        assertEquals(sequentialStatistics.toJson(), parallelBrokenStatistics.toJson());
+    }
+
+    @Test
+    void syntaxerParsesEveryTokenOnce() throws InvalidTokenException {
+        ParseStatistics statistics = new ParseStatistics();
+        GrammarChecker checker = new GrammarChecker(Lexer.tokenize(Sources.nestedProgram(200)));
+        checker.setStatistics(statistics);
+        checker.parse();
+        // rules only start again at a token after a failure, so nesting depth does not multiply the work
+        for (FormalGrammar rule : FormalGrammar.values()) {
+            assertEquals(0, statistics.failures(rule), rule.name());
+            assertEquals(0, statistics.tokensRewound(rule), rule.name());
+        }
+        assertEquals(200, statistics.attempts(FormalGrammar.WHILE_LOOP));
+    }
+
+    @Test
+    void syntaxerParsesGeneratedPrograms() throws InvalidTokenException {
+        assertEquals(new ProgramGenerator(3, 2, 10, 3, 2).generate(), new ProgramGenerator(3, 2, 10, 3, 2).generate());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 20; seed++) {
+                String program = new ProgramGenerator(seed, 1 + seed % 4, 5 + seed, seed % 6, seed % 4).generate();
+                TokenBuffer tokens = Lexer.tokenize(program);
+                Tree tree = GrammarChecker.checkGrammar(tokens);
+                assertEquals(1 + seed % 4, tree.getRoot().getChildNodes().size());
+                assertSameTree(tree, GrammarChecker.checkGrammarParallel(tokens, pool));
+                assertFalse(GrammarChecker.checkGrammarRecovering(tokens).hasErrors());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void syntaxerKeepsLiteralTypes() throws InvalidTokenException {
+        TokenBuffer tokens = Lexer.tokenize(
+            "class Numbers is\n  var count : 15\n  method run(x : Real) is\n    x := x + 2.75 * 3\n  end\nend\n");
+        List<LiteralType> expected = List.of(LiteralType.INTEGER, LiteralType.REAL, LiteralType.INTEGER);
+        Tree tree = GrammarChecker.checkGrammar(tokens);
+        assertEquals(expected, literalTypes(tree));
+        CompactTree compact = GrammarChecker.checkGrammarCompact(tokens);
+        assertEquals(expected, literalTypes(compact.toTree()));
+        assertEquals(expected, literalTypes(CompactTree.of(tree).toTree()));
+        int count = compact.nodesOfKind(FormalGrammar.PRIMARY).get(0);
+        assertEquals("15", compact.value(count));
+        assertEquals(LiteralType.INTEGER, compact.literalType(count));
+        assertNull(compact.literalType(0));
+    }
+
+    private List<LiteralType> literalTypes(Tree tree) {
+        return tree.nodesOfKind(FormalGrammar.PRIMARY).stream()
+            .map(Node::getLiteralType)
+            .filter(literalType -> literalType != null)
+            .toList();
+    }
+
+    @Test
+    void syntaxerBuildsCompactTrees() throws InvalidTokenException, IOException {
+        List<TokenBuffer> programs = new ArrayList<>();
+        for (int testNumber = 2; testNumber <= 5; testNumber++) {
+            programs.add(Lexer.tokenize(getProgram(testNumber)));
+        }
+        programs.add(Lexer.tokenize(new ProgramGenerator(5, 3, 12, 3, 2).generate()));
+        for (TokenBuffer tokens : programs) {
+            Tree tree = GrammarChecker.checkGrammar(tokens);
+            CompactTree compact = GrammarChecker.checkGrammarCompact(tokens);
+            assertSameTree(tree, compact.toTree());
+            assertSameTree(tree, CompactTree.of(tree).toTree());
+            assertEquals(TreeUtil.getAllTypesForTree(tree), TreeUtil.getAllTypesForTree(compact));
+
+            // depth first walk with the cursor visits every node once, in index order
+            CompactTree.Cursor cursor = compact.cursor();
+            int visited = 1;
+            while (true) {
+                if (cursor.toFirstChild() || cursor.toNextSibling()) {
+                    assertEquals(visited++, cursor.node());
+                    continue;
+                }
+                // climb to the first ancestor followed by a sibling
+                boolean advanced = false;
+                while (!advanced && cursor.toParent()) {
+                    advanced = cursor.toNextSibling();
+                }
+                if (!advanced) {
+                    break;
+                }
+                assertEquals(visited++, cursor.node());
+            }
+            assertEquals(compact.size(), visited);
+        }
+
+        TokenBuffer broken = Lexer.tokenize(Sources.wideProgram(12).replace("a.Div(2))", "a.Div(2)"));
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        new GrammarChecker(broken).parseRecovering(builder);
+        assertSameTree(GrammarChecker.checkGrammarRecovering(broken).getTree(), builder.getTree().toTree());
+
+        // copies in both directions do not recurse
+        Tree deep = new Tree();
+        Node bottom = deep.getRoot();
+        for (int depth = 0; depth < 100_000; depth++) {
+            bottom = bottom.addChild(new Node(FormalGrammar.STATEMENT));
+        }
+        bottom.addChild(new Node(FormalGrammar.IDENTIFIER, "x"));
+        CompactTree deepCompact = CompactTree.of(deep);
+        assertEquals(100_002, deepCompact.size());
+        assertTrue(TreeUtil.sameStructure(deep.getRoot(), deepCompact.toTree().getRoot()));
+        assertTrue(TreeUtil.sameStructure(deep.getRoot().getChildNodes().get(0), deepCompact.toNode(1)));
+    }
+
+    @Test
+    void syntaxerLinksScopes() throws InvalidTokenException {
+        TokenBuffer tokens = Lexer.tokenize(Sources.wideProgram(30));
+        Tree tree = GrammarChecker.checkGrammar(tokens);
+        assertScopesLinked(tree, tree.getRoot(), null);
+
+        // members shared with a reparsed tree keep their links in both trees
+        String source = tokens.getSource().toString();
+        int offset = source.indexOf("x > 12");
+        Tree reparsed = GrammarChecker.reparse(tree, Lexer.relex(tokens, new SourceEdit(offset, 6, "x > a")));
+        assertScopesLinked(reparsed, reparsed.getRoot(), null);
+        assertScopesLinked(tree, tree.getRoot(), null);
+        Node firstMember = tree.getRoot().getChildNodes().get(0).getChildNodes().get(1);
+        assertSame(firstMember, reparsed.getRoot().getChildNodes().get(0).getChildNodes().get(1));
+        assertNotSame(tree.getRoot().getChildNodes().get(0), reparsed.getRoot().getChildNodes().get(0));
+        assertSame(tree.getRoot().getChildNodes().get(0), tree.parentOf(firstMember));
+        assertSame(reparsed.getRoot().getChildNodes().get(0), reparsed.parentOf(firstMember));
+        assertSame(tree.getRoot().getChildNodes().get(0), TreeUtil.getNodeScope(tree, firstMember));
+        assertSame(firstMember, tree.nodeOf(tree.nodeId(firstMember)));
+        assertSame(firstMember, reparsed.nodeOf(reparsed.nodeId(firstMember)));
+
+        // nodes of other trees have no links
+        Tree other = GrammarChecker.checkGrammar(tokens);
+        assertEquals(null, TreeUtil.getNodeScope(other, firstMember));
+        assertEquals(null, other.parentOf(firstMember));
+        assertEquals(Tree.NONE, other.nodeId(firstMember));
+        assertSame(tree.getRoot().getChildNodes().get(0), tree.parentOf(firstMember));
+    }
+
+    @Test
+    void syntaxerQueriesTreesSharingMembersConcurrently() throws Exception {
+        TokenBuffer tokens = Lexer.tokenize(Sources.wideProgram(30));
+        Tree tree = GrammarChecker.checkGrammar(tokens);
+        String source = tokens.getSource().toString();
+        int offset = source.indexOf("x > 12");
+        Tree reparsed = GrammarChecker.reparse(tree, Lexer.relex(tokens, new SourceEdit(offset, 6, "x > a")));
+        Node sharedMember = tree.getRoot().getChildNodes().get(0).getChildNodes().get(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                Tree queried = thread % 2 == 0 ? tree : reparsed;
+                results.add(executor.submit(() -> {
+                    Node classNode = queried.getRoot().getChildNodes().get(0);
+                    for (int round = 0; round < 1000; round++) {
+                        if (queried.parentOf(sharedMember) != classNode
+                            || TreeUtil.getNodeScope(queried, sharedMember) != classNode
+                            || queried.nodeOf(queried.nodeId(sharedMember)) != sharedMember) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Compares scopes of every node with the closest declaration above it found by walking from the root
+     */
+    private void assertScopesLinked(Tree tree, Node node, Node expectedScope) {
+        assertSame(expectedScope, TreeUtil.getNodeScope(tree, node));
+        FormalGrammar type = node.getType();
+        boolean isScope = type == FormalGrammar.METHOD_DECLARATION || type == FormalGrammar.CLASS_DECLARATION
+            || type == FormalGrammar.CONSTRUCTOR_DECLARATION;
+        for (Node child : node.getChildNodes()) {
+            assertScopesLinked(tree, child, isScope ? node : expectedScope);
+            assertSame(node, tree.parentOf(child));
+        }
+    }
+
+    @Test
+    void syntaxerGivesNodesIdentityAndIds() throws InvalidTokenException {
+        String program = "class Twice is\n"
+            + "  method first(x : Integer) : Integer is\n"
+            + "    x := 1\n"
+            + "  end\n"
+            + "  method second(x : Integer) : Integer is\n"
+            + "    x := 1\n"
+            + "  end\n"
+            + "end\n";
+        Tree tree = GrammarChecker.checkGrammar(Lexer.tokenize(program));
+        Node classNode = tree.getRoot().getChildNodes().get(0);
+        Node first = findNode(classNode.getChildNodes().get(1), FormalGrammar.ASSIGNMENT);
+        Node second = findNode(classNode.getChildNodes().get(2), FormalGrammar.ASSIGNMENT);
+        assertTrue(TreeUtil.sameStructure(first, second));
+        assertFalse(TreeUtil.sameStructure(classNode.getChildNodes().get(1), classNode.getChildNodes().get(2)));
+        assertNotEquals(first, second);
+        Map<Node, String> methods = new HashMap<>();
+        methods.put(first, "first");
+        methods.put(second, "second");
+        assertEquals(2, methods.size());
+
+        // ids number the nodes in document order
+        List<Node> nodes = new ArrayList<>();
+        collectNodes(tree.getRoot(), nodes);
+        assertEquals(nodes.size(), tree.getNodeCount());
+        for (int id = 0; id < nodes.size(); id++) {
+            assertEquals(id, tree.nodeId(nodes.get(id)));
+        }
+        assertEquals(-1, GrammarChecker.checkGrammar(Lexer.tokenize(program)).nodeId(first));
+    }
+
+    @Test
+    void syntaxerIndexesNodesByKind() throws InvalidTokenException {
+        Tree tree = GrammarChecker.checkGrammar(Lexer.tokenize(new ProgramGenerator(5, 3, 8, 2, 1).generate()));
+        List<Node> nodes = new ArrayList<>();
+        collectNodes(tree.getRoot(), nodes);
+        for (FormalGrammar kind : FormalGrammar.values()) {
+            List<Node> expected = nodes.stream().filter(node -> node.getType() == kind).toList();
+            assertEquals(expected, tree.nodesOfKind(kind));
+        }
+        assertEquals(nodes.stream().filter(node -> node.getType() == FormalGrammar.ASSIGNMENT
+                || node.getType() == FormalGrammar.VARIABLE_DECLARATION).toList(),
+            TreeUtil.inOrderSearch(tree, List.of(FormalGrammar.VARIABLE_DECLARATION, FormalGrammar.ASSIGNMENT)));
+
+        // subtree queries only return nodes inside of the subtree
+        Node secondClass = tree.getRoot().getChildNodes().get(1);
+        List<Node> classNodes = new ArrayList<>();
+        collectNodes(secondClass, classNodes);
+        assertEquals(classNodes.stream().filter(node -> node.getType() == FormalGrammar.VARIABLE_DECLARATION).toList(),
+            tree.nodesOfKind(secondClass, FormalGrammar.VARIABLE_DECLARATION));
+        assertEquals(List.of(secondClass), tree.nodesOfKind(secondClass, FormalGrammar.CLASS_DECLARATION));
+        assertEquals(List.of(), new Tree().nodesOfKind(secondClass, FormalGrammar.CLASS_DECLARATION));
+
+        // generated classes reuse method names, only a name declared once is found
+        List<Node> methods = tree.nodesOfKind(FormalGrammar.METHOD_DECLARATION);
+        Node method = methods.stream()
+            .filter(candidate -> methods.stream().filter(other -> other.getChildNodes().get(0).getValue()
+                .equals(candidate.getChildNodes().get(0).getValue())).count() == 1)
+            .findFirst().orElseThrow();
+        assertSame(method, TreeUtil.getMethodDeclarationNodeByMethodName(method.getChildNodes().get(0).getValue(), tree));
+        Node parameter = method.getChildNodes().get(1).getChildNodes().get(0);
+        assertSame(parameter, TreeUtil.findVariableDeclarationNodeInScopeByName("a", method, tree));
+
+        // a scope of another tree is searched directly
+        Tree other = GrammarChecker.checkGrammar(Lexer.tokenize(new ProgramGenerator(5, 3, 8, 2, 1).generate()));
+        assertSame(parameter, TreeUtil.findVariableDeclarationNodeInScopeByName("a", method, other));
+        assertSame(parameter, TreeUtil.getVariableDeclarationByVariableName("a", method, other));
+    }
+
+    @Test
+    void syntaxerWalksTreesWithoutRecursion() throws Exception {
+        Node deep = new Node(FormalGrammar.STATEMENT);
+        Node bottom = deep;
+        for (int depth = 0; depth < 100_000; depth++) {
+            bottom = bottom.addChild(new Node(FormalGrammar.STATEMENT));
+        }
+        bottom.addChild(new Node(FormalGrammar.IDENTIFIER, "x"));
+        List<Node> identifiers = new ArrayList<>();
+        TreeWalker.collect(deep, node -> node.getType() == FormalGrammar.IDENTIFIER, identifiers);
+        assertEquals(1, identifiers.size());
+        int[] counts = new int[2];
+        TreeWalker.walk(deep, new NodeVisitor() {
+            @Override
+            public boolean enter(Node node) {
+                counts[0]++;
+                return true;
+            }
+
+            @Override
+            public void exit(Node node) {
+                counts[1]++;
+            }
+        });
+        assertEquals(100_002, counts[0]);
+        assertEquals(100_002, counts[1]);
+
+        // skipping method declarations leaves the fields
+        Tree tree = GrammarChecker.checkGrammar(Lexer.tokenize(new ProgramGenerator(9, 4, 10, 3, 2).generate()));
+        List<Node> fields = new ArrayList<>();
+        TreeWalker.walk(tree.getRoot(), node -> {
+            if (node.getType() == FormalGrammar.VARIABLE_DECLARATION) {
+                fields.add(node);
+            }
+            return node.getType() != FormalGrammar.METHOD_DECLARATION;
+        });
+        assertEquals(tree.nodesOfKind(FormalGrammar.VARIABLE_DECLARATION).stream()
+            .filter(node -> tree.scopeOf(node).getType() == FormalGrammar.CLASS_DECLARATION).toList(), fields);
+
+        // threads querying one unlinked tree get the same results
+        Tree shared = GrammarChecker.checkGrammar(Lexer.tokenize(new ProgramGenerator(9, 4, 10, 3, 2).generate()));
+        List<FormalGrammar> kinds = List.of(FormalGrammar.ASSIGNMENT, FormalGrammar.VARIABLE_DECLARATION);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Node>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    Node classNode = TreeUtil.getMainClassNode(shared);
+                    assertEquals(classNode.getChildNodes().stream()
+                            .filter(member -> member.getChildNodes().get(0).getType() == FormalGrammar.METHOD_DECLARATION)
+                            .count(), TreeUtil.getClassMethods(classNode).size());
+                    return TreeUtil.inOrderSearch(shared, kinds);
+                }));
+            }
+            List<Node> expected = new ArrayList<>();
+            TreeWalker.collect(shared.getRoot(), node -> kinds.contains(node.getType()), expected);
+            for (Future<List<Node>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void collectNodes(Node node, List<Node> nodes) {
+        nodes.add(node);
+        for (Node child : node.getChildNodes()) {
+            collectNodes(child, nodes);
+        }
+    }
+
+    /**
+     * Compares trees node by node, shows both trees if they differ
+     */
+    private void assertSameTree(Tree expected, Tree actual) {
+        if (!TreeUtil.sameStructure(expected.getRoot(), actual.getRoot())) {
+            assertEquals(expected.toString(), actual.toString());
+            fail("Trees differ");
+        }
+    }
+
+    @Test
+    void syntaxerParsesOperationChainsByPrecedence() throws InvalidTokenException {
+        assertEquals("(a + (b * c)) < d", parseOperation("a + b * c < d"));
+        assertEquals("(a - b) - c", parseOperation("a - b - c"));
+        assertEquals("(a * b) + (c / d)", parseOperation("a * b + c / d"));
+        assertEquals("a <= (b.Plus(1) + c)", parseOperation("a <= b.Plus(1) + c"));
+        assertEquals("a + b", parseOperation("a + b"));
+        assertThrows(CompilationException.class, () -> parseOperation("a + b *"));
+    }
+
+    private String parseOperation(String operation) throws InvalidTokenException {
+        String program = "class Chain is\n"
+            + "  method run(a : Integer, b : Integer, c : Integer, d : Integer) : Boolean is\n"
+            + "    a := " + operation + "\n"
+            + "  end\n"
+            + "end\n";
+        Tree tree = GrammarChecker.checkGrammar(Lexer.tokenize(program));
+        Node assignment = findNode(tree.getRoot(), FormalGrammar.ASSIGNMENT);
+        return TreeUtil.operandToString(assignment.getChildNodes().get(1));
+    }
+
+    private Node findNode(Node node, FormalGrammar type) {
+        if (node.getType() == type) {
+            return node;
+        }
+        for (Node child : node.getChildNodes()) {
+            Node found = findNode(child, type);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,62 @@
+package benchmark;
+
+import com.example.transpiler.lexer.InvalidTokenException;
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.Tree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how lexing and parsing scale with the number of classes of generated programs.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.GeneratedProgramBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedProgramBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int classes;
+
+    private String program;
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setUp() throws InvalidTokenException {
+        program = new ProgramGenerator(42, classes, 20, 4, 3).generate();
+        tokens = Lexer.tokenize(program);
+    }
+
+    @Benchmark
+    public TokenBuffer lex() throws InvalidTokenException {
+        return Lexer.tokenize(program);
+    }
+
+    @Benchmark
+    public Tree parse() {
+        return GrammarChecker.checkGrammar(tokens);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GeneratedProgramBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.syntaxer.FormalGrammar;
+import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.ParseListener;
+import com.example.transpiler.syntaxer.Tree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the predictive grammar checker with the backtracking one on deeply nested programs,
+ * and with a predictive parse reporting to a listener that builds no nodes.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.GrammarCheckerBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarCheckerBenchmark {
+
+    @Param({"10", "100", "400"})
+    public int depth;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setUp() {
+        tokens = Lexer.tokenize(Sources.nestedProgram(depth));
+    }
+
+    @Benchmark
+    public Tree predictive() {
+        return GrammarChecker.checkGrammar(tokens);
+    }
+
+    @Benchmark
+    public int listener() {
+        RuleCounter counter = new RuleCounter();
+        GrammarChecker.checkGrammar(tokens, counter);
+        return counter.rules;
+    }
+
+    @Benchmark
+    public Tree backtracking() {
+        return LegacyGrammarChecker.checkGrammar(tokens);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GrammarCheckerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class RuleCounter implements ParseListener {
+
+        private int rules;
+
+        @Override
+        public void enterRule(FormalGrammar rule, String value) {
+            rules++;
+        }
+
+        @Override
+        public void exitRule(FormalGrammar rule) {
+        }
+
+        @Override
+        public void leaf(FormalGrammar type, String value) {
+            rules++;
+        }
+
+        @Override
+        public void abandonRules(int count) {
+        }
+    }
+
+}
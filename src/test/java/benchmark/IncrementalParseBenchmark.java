@@ -0,0 +1,65 @@
+package benchmark;
+
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.SourceEdit;
+import com.example.transpiler.lexer.TokenDelta;
+import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.Tree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares parsing a large class from scratch after an edit of one method with reparsing only that method.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.IncrementalParseBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalParseBenchmark {
+
+    @Param({"200", "2000"})
+    public int members;
+
+    private Tree tree;
+    private TokenDelta delta;
+
+    @Setup
+    public void setUp() {
+        String program = Sources.wideProgram(members);
+        var tokens = Lexer.tokenize(program);
+        tree = GrammarChecker.checkGrammar(tokens);
+        String condition = "x > " + members / 2 + " ";
+        delta = Lexer.relex(tokens, new SourceEdit(program.indexOf(condition), 1, "a.Plus(x)"));
+    }
+
+    @Benchmark
+    public Tree fullParse() {
+        return GrammarChecker.checkGrammar(delta.getTokens());
+    }
+
+    @Benchmark
+    public Tree reparse() {
+        return GrammarChecker.reparse(tree, delta);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IncrementalParseBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
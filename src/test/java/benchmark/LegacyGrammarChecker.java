@@ -0,0 +1,436 @@
+package benchmark;
+
+import com.example.transpiler.lexer.SymbolTable;
+import com.example.transpiler.lexer.Token;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.lexer.TokenType;
+import com.example.transpiler.syntaxer.CompilationException;
+import com.example.transpiler.syntaxer.FormalGrammar;
+import com.example.transpiler.syntaxer.Node;
+import com.example.transpiler.syntaxer.Tree;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Copy of the grammar checker that tries alternatives in turn and backtracks on exceptions,
+ * kept as the baseline for benchmarks of the predictive one. It wrote the expected trees in test_data_syntaxer.
+ */
+@UtilityClass
+public class LegacyGrammarChecker {
+
+    private TokenBuffer tokens;
+    private Tree tree;
+    private int currentIndex = 0;
+
+    public Tree checkGrammar(List<Token> tokens) {
+        return checkGrammar(TokenBuffer.of(tokens));
+    }
+
+    public Tree checkGrammar(TokenBuffer tokens) {
+        LegacyGrammarChecker.tokens = tokens;
+        tree = new Tree();
+        currentIndex = 0;
+        while (true) {
+            int validIndex = currentIndex;
+            try {
+                specifyClassDeclaration(tree.getRoot());
+            } catch (Exception e) {
+                if (currentIndex < tokens.size()) {
+                    throw new CompilationException();
+                }
+                currentIndex = validIndex;
+                tree.getRoot().deleteLastChild();
+                break;
+            }
+        }
+        return tree;
+    }
+
+    private void specifyClassDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.CLASS_DECLARATION, parentNode);
+        verifyToken(SymbolTable.CLASS);
+        specifyClassName(node);
+        if (isSymbol(SymbolTable.EXTENDS)) {
+            verifyToken(SymbolTable.EXTENDS);
+            specifyClassName(node);
+        }
+        verifyToken(SymbolTable.IS);
+        while (true) {
+            int validIndex = currentIndex;
+            try {
+                specifyMemberDeclaration(node);
+            } catch (Exception e) {
+                currentIndex = validIndex;
+                node.deleteLastChild();
+                break;
+            }
+        }
+        verifyToken(SymbolTable.END);
+    }
+
+    public void specifyClassName(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.CLASS_NAME, parentNode);
+        specifyIdentifier(node);
+        if (isSymbol(SymbolTable.LEFT_BRACKET)) {
+            verifyToken(SymbolTable.LEFT_BRACKET);
+            specifyClassName(node);
+            verifyToken(SymbolTable.RIGHT_BRACKET);
+        }
+    }
+
+    public void specifyIdentifier(Node parentNode) {
+        tree.addNode(FormalGrammar.IDENTIFIER, lexeme(), parentNode);
+        if (tokenType() != TokenType.IDENTIFIER) {
+            throw new CompilationException();
+        } else {
+            incrementIndex();
+        }
+    }
+
+    public void specifyMemberDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.MEMBER_DECLARATION, parentNode);
+        int validIndex = currentIndex;
+        try {
+            specifyVariableDeclaration(node);
+        } catch (CompilationException e) {
+            currentIndex = validIndex;
+            node.deleteLastChild();
+            try {
+                specifyMethodDeclaration(node);
+            } catch (CompilationException exception) {
+                currentIndex = validIndex;
+                node.deleteLastChild();
+                try {
+                    specifyConstructorDeclaration(node);
+                } catch (CompilationException exception1) {
+                    currentIndex = validIndex;
+                    node.deleteLastChild();
+                    try {
+                        specifyNestedClassDeclaration(node);
+                    } catch (CompilationException exception2) {
+                        currentIndex = validIndex;
+                        node.deleteLastChild();
+                        specifyFunctionDeclaration(node);
+                    }
+
+                }
+            }
+        }
+    }
+
+    public void specifyFunctionDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.FUNCTION_DECLARATION, parentNode);
+        verifyToken(SymbolTable.FUNCTION);
+        verifyToken(SymbolTable.LESS);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.COMMA);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.GREATER);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.COLON);
+        verifyToken(SymbolTable.EQUAL);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.MINUS);
+        verifyToken(SymbolTable.GREATER);
+        specifyExpression(node);
+    }
+
+    public void specifyNestedClassDeclaration(Node parentNode){
+        specifyClassDeclaration(parentNode);
+    }
+
+    public void specifyVariableDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.VARIABLE_DECLARATION, parentNode);
+        verifyToken(SymbolTable.VAR);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.COLON);
+        specifyExpression(node);
+    }
+
+    public void specifyMethodDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.METHOD_DECLARATION, parentNode);
+        verifyToken(SymbolTable.METHOD);
+        specifyIdentifier(node);
+        if (isSymbol(SymbolTable.LEFT_PARENTHESIS)) {
+            specifyParameters(node);
+        }
+        if (isSymbol(SymbolTable.COLON)) {
+            verifyToken(SymbolTable.COLON);
+            specifyIdentifier(node);
+        }
+        verifyToken(SymbolTable.IS);
+        specifyBody(node);
+        verifyToken(SymbolTable.END);
+    }
+
+    public void specifyParameters(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.PARAMETERS, parentNode);
+        verifyToken(SymbolTable.LEFT_PARENTHESIS);
+        specifyParameterDeclaration(node);
+        while (isSymbol(SymbolTable.COMMA)) {
+            verifyToken(SymbolTable.COMMA);
+            specifyParameterDeclaration(node);
+        }
+        verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+    }
+
+    public void specifyParameterDeclaration(Node parentNode) {
+        if (isSymbol(SymbolTable.RIGHT_PARENTHESIS)) {
+            return;
+        }
+        Node node = tree.addNode(FormalGrammar.PARAMETER_DECLARATION, parentNode);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.COLON);
+        specifyClassName(node);
+    }
+
+    private void specifyBody(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.BODY, parentNode);
+        while (true) {
+            int validState = currentIndex;
+            try {
+                specifyVariableDeclaration(node);
+            } catch (Exception exception) {
+                currentIndex = validState;
+                node.deleteLastChild();
+                try {
+                    specifyStatement(node);
+                } catch (Exception e) {
+                    currentIndex = validState;
+                    node.deleteLastChild();
+                    try {
+                        specifyFunctionDeclaration(node);
+                    } catch (Exception exception1) {
+                        currentIndex = validState;
+                        node.deleteLastChild();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    public void specifyConstructorDeclaration(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.CONSTRUCTOR_DECLARATION, parentNode);
+        verifyToken(SymbolTable.THIS);
+        if (isSymbol(SymbolTable.LEFT_PARENTHESIS)) {
+            specifyParameters(node);
+        }
+        verifyToken(SymbolTable.IS);
+        specifyBody(node);
+        verifyToken(SymbolTable.END);
+    }
+
+    private void specifyStatement(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.STATEMENT, parentNode);
+        int validState = currentIndex;
+        try {
+            specifyAssignment(node);
+        } catch (Exception exception) {
+            currentIndex = validState;
+            node.deleteLastChild();
+            try {
+                specifyWhileLoop(node);
+            } catch (Exception e) {
+                currentIndex = validState;
+                node.deleteLastChild();
+                try {
+                    specifyIfStatement(node);
+                } catch (Exception ex) {
+                    currentIndex = validState;
+                    node.deleteLastChild();
+                    specifyReturnStatement(node);
+                }
+            }
+        }
+    }
+
+    private void specifyAssignment(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.ASSIGNMENT, parentNode);
+        specifyIdentifier(node);
+        verifyToken(SymbolTable.COLON);
+        verifyToken(SymbolTable.EQUAL);
+        int validState = currentIndex;
+        try {
+            specifyMathExpression(node);
+        } catch (Exception e) {
+            currentIndex = validState;
+            node.deleteLastChild();
+            specifyExpression(node);
+        }
+
+    }
+
+    private void specifyWhileLoop(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.WHILE_LOOP, parentNode);
+        verifyToken(SymbolTable.WHILE);
+        int validState = currentIndex;
+        try {
+            specifyMathExpression(node);
+        } catch (Exception e) {
+            currentIndex = validState;
+            node.deleteLastChild();
+            specifyExpression(node);
+        }
+        verifyToken(SymbolTable.LOOP);
+        specifyBody(node);
+        verifyToken(SymbolTable.END);
+    }
+
+    private void specifyIfStatement(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.IF_STATEMENT, parentNode);
+        verifyToken(SymbolTable.IF);
+        int validState = currentIndex;
+        try {
+            specifyMathExpression(node);
+        } catch (Exception e) {
+            currentIndex = validState;
+            node.deleteLastChild();
+            specifyExpression(node);
+        }
+        verifyToken(SymbolTable.THEN);
+        specifyBody(node);
+        if (isSymbol(SymbolTable.ELSE)) {
+            verifyToken(SymbolTable.ELSE);
+            specifyBody(node);
+        }
+        verifyToken(SymbolTable.END);
+    }
+
+    private void specifyReturnStatement(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.RETURN_STATEMENT, parentNode);
+        verifyToken(SymbolTable.RETURN);
+        int validState = currentIndex;
+        try {
+            specifyMathExpression(node);
+        } catch (Exception e) {
+            currentIndex = validState;
+            node.deleteLastChild();
+            specifyExpression(node);
+        }
+    }
+
+    private void specifyExpression(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.EXPRESSION, parentNode);
+        specifyPrimary(node);
+        while (isSymbol(SymbolTable.DOT)) {
+            verifyToken(SymbolTable.DOT);
+            specifyIdentifier(node);
+            int validIndex = currentIndex;
+            try {
+                specifyArguments(node);
+            } catch (Exception exception) {
+                currentIndex = validIndex;
+                node.deleteLastChild();
+//                break;
+            }
+        }
+    }
+
+    private void specifyMathExpression(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.MATH_EXPRESSION, parentNode);
+        specifyExpression(node);
+        specifyOperation(node);
+        specifyExpression(node);
+    }
+
+    private void specifyOperation(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.OPERATION, parentNode);
+        node.setValue(verifyOperation());
+    }
+
+    private String verifyOperation() {
+        String operation = "";
+        if (
+            tokenType().equals(TokenType.OPERATOR)
+            && isOperationSymbol(tokens.symbol(currentIndex))
+        ) {
+            operation += lexeme();
+            incrementIndex();
+        } else {
+            throw new CompilationException("Not an operator");
+        }
+        if (tokenType().equals(TokenType.OPERATOR)) {
+            operation += lexeme();
+            incrementIndex();
+        }
+        return operation;
+    }
+
+    private boolean isOperationSymbol(int symbol) {
+        return symbol == SymbolTable.PLUS || symbol == SymbolTable.MINUS || symbol == SymbolTable.DIVIDE
+            || symbol == SymbolTable.GREATER || symbol == SymbolTable.LESS || symbol == SymbolTable.MULTIPLY
+            || symbol == SymbolTable.EQUAL;
+    }
+
+    private void specifyArguments(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.ARGUMENTS, parentNode);
+        verifyToken(SymbolTable.LEFT_PARENTHESIS);
+        if (isSymbol(SymbolTable.RIGHT_PARENTHESIS)) {
+            verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+            return;
+        }
+        specifyExpression(node);
+        while (isSymbol(SymbolTable.COMMA)) {
+            verifyToken(SymbolTable.COMMA);
+            specifyExpression(node);
+        }
+        verifyToken(SymbolTable.RIGHT_PARENTHESIS);
+    }
+
+    private void specifyPrimary(Node parentNode) {
+        Node node = tree.addNode(FormalGrammar.PRIMARY, parentNode);
+        int validIndex = currentIndex;
+        try {
+            node.setValue(lexeme());
+            verifyTokenType(TokenType.LITERAL);
+        } catch (Exception exception) {
+            currentIndex = validIndex;
+            try {
+                verifyToken(SymbolTable.THIS);
+                node.setValue("this");
+            } catch (Exception e) {
+                currentIndex = validIndex;
+                specifyClassName(node);
+            }
+        }
+    }
+
+    private String lexeme() {
+        return tokens.lexeme(currentIndex);
+    }
+
+    private boolean isSymbol(int symbol) {
+        return tokens.symbol(currentIndex) == symbol;
+    }
+
+    private TokenType tokenType() {
+        return tokens.type(currentIndex);
+    }
+
+    private void verifyToken(int symbol) {
+        if (!isSymbol(symbol)) {
+            throw new CompilationException();
+        } else {
+            try {
+                incrementIndex();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void verifyTokenType(TokenType tokenType) {
+        if (!tokenType.equals(tokenType())) {
+            throw new CompilationException();
+        } else {
+            incrementIndex();
+        }
+    }
+
+    private void incrementIndex() {
+        currentIndex++;
+        if (currentIndex == tokens.size()) {
+            throw new CompilationException();
+        }
+    }
+}
\ No newline at end of file
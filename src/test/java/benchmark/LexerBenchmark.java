@@ -0,0 +1,59 @@
+package benchmark;
+
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.Token;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the single-pass lexer with the split-and-reinsert one it replaced.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.LexerBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int lines;
+
+    private String program;
+
+    @Setup
+    public void setUp() throws IOException {
+        program = Sources.repeatToLines(Sources.libraryClass("Integer"), lines);
+    }
+
+    @Benchmark
+    public List<Token> singlePass() {
+        return Lexer.getTokensFromCode(program);
+    }
+
+    @Benchmark
+    public List<Token> legacy() {
+        return LegacyLexer.getTokensFromCode(program);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LexerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
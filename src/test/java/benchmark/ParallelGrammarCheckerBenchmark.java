@@ -0,0 +1,60 @@
+package benchmark;
+
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.TokenBuffer;
+import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.Tree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares sequential parsing of one large class with parsing its members in parallel.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.ParallelGrammarCheckerBenchmark -Dexec.classpathScope=test},
+ * the common pool size can be changed with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelGrammarCheckerBenchmark {
+
+    @Param({"200", "2000"})
+    public int members;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setUp() {
+        tokens = Lexer.tokenize(Sources.wideProgram(members));
+    }
+
+    @Benchmark
+    public Tree sequential() {
+        return GrammarChecker.checkGrammar(tokens);
+    }
+
+    @Benchmark
+    public Tree parallel() {
+        return GrammarChecker.checkGrammarParallel(tokens);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParallelGrammarCheckerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.TokenBuffer;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares sequential and chunked parallel lexing of one large file.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.ParallelLexerBenchmark -Dexec.classpathScope=test},
+ * the common pool size can be changed with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelLexerBenchmark {
+
+    @Param({"100000", "500000"})
+    public int lines;
+
+    private String program;
+
+    @Setup
+    public void setUp() throws IOException {
+        program = Sources.repeatToLines(Sources.libraryClass("Integer"), lines);
+    }
+
+    @Benchmark
+    public TokenBuffer sequential() {
+        return Lexer.tokenize(program);
+    }
+
+    @Benchmark
+    public TokenBuffer parallel() {
+        return Lexer.tokenizeParallel(program);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParallelLexerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
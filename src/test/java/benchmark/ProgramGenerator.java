@@ -0,0 +1,176 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of syntactically valid O programs of any size.
+ * Every class has fields, a constructor and methods whose bodies nest while loops and if statements,
+ * expressions are call chains on fields, parameters, locals and library classes like {@code Integer.Max.Plus(x)},
+ * and fields of later classes refer to earlier generated classes.
+ * The same seed and parameters always give the same program.
+ */
+public class ProgramGenerator {
+
+    private static final String[] INTEGER_METHODS = {"Plus", "Minus", "Mult", "Div"};
+    private static final String[] COMPARISONS = {"Less", "LessEqual", "Greater", "GreaterEqual", "Equal"};
+    private static final String[] OPERATIONS = {"+", "-", "*", "/"};
+    private static final String[] COMPARISON_OPERATIONS = {"<", ">", "<=", ">=", "=="};
+
+    private final Random random;
+    private final int classes;
+    private final int membersPerClass;
+    private final int nestingDepth;
+    private final int callChainLength;
+    private final StringBuilder builder = new StringBuilder();
+    private int localCount;
+
+    /**
+     * @param seed seed of all choices
+     * @param classes number of top level classes
+     * @param membersPerClass number of fields, constructors, methods and functions in every class
+     * @param nestingDepth number of while/if levels in the body of every method
+     * @param callChainLength number of method calls and field accesses after the first primary of call chains
+     */
+    public ProgramGenerator(long seed, int classes, int membersPerClass, int nestingDepth, int callChainLength) {
+        this.random = new Random(seed);
+        this.classes = classes;
+        this.membersPerClass = membersPerClass;
+        this.nestingDepth = nestingDepth;
+        this.callChainLength = callChainLength;
+    }
+
+    /**
+     * Can be called once per instance
+     * @return source of the program
+     */
+    public String generate() {
+        for (int index = 0; index < classes; index++) {
+            generateClass(index);
+        }
+        return builder.toString();
+    }
+
+    private void generateClass(int index) {
+        line(0, "class Generated" + index + " is");
+        List<String> fields = new ArrayList<>();
+        fields.add("count" + index);
+        line(1, "var count" + index + " : Integer");
+        if (index > 0) {
+            line(1, "var previous : Generated" + random.nextInt(index));
+        }
+        for (int member = 1; member < membersPerClass; member++) {
+            int kind = random.nextInt(10);
+            if (kind < 2) {
+                String field = "field" + member;
+                line(1, "var " + field + " : " + chain(fields));
+                fields.add(field);
+            } else if (kind == 2) {
+                generateConstructor(fields);
+            } else if (kind == 3) {
+                line(1, "function<Integer, Boolean> check" + member + " := value -> Integer."
+                    + pick(COMPARISONS) + "(" + random.nextInt(100) + ")");
+            } else {
+                generateMethod(member, fields);
+            }
+        }
+        line(0, "end");
+    }
+
+    private void generateConstructor(List<String> fields) {
+        line(1, "this(initial : Integer) is");
+        line(2, pick(fields) + " := initial");
+        line(1, "end");
+    }
+
+    private void generateMethod(int member, List<String> fields) {
+        line(1, "method compute" + member + "(a : Integer, b : Integer) : Integer is");
+        List<String> names = new ArrayList<>(fields);
+        names.add("a");
+        names.add("b");
+        generateBody(2, 0, names);
+        line(2, "return " + operand(names));
+        line(1, "end");
+    }
+
+    /**
+     * @param indent indentation level of statements
+     * @param depth number of enclosing while/if blocks
+     * @param names variables visible in the body
+     */
+    private void generateBody(int indent, int depth, List<String> names) {
+        List<String> visible = new ArrayList<>(names);
+        String local = "local" + localCount++;
+        line(indent, "var " + local + " : " + chain(visible));
+        visible.add(local);
+        int statements = 1 + random.nextInt(3);
+        for (int statement = 0; statement < statements; statement++) {
+            line(indent, pick(visible) + " := " + operand(visible));
+        }
+        if (depth == nestingDepth) {
+            return;
+        }
+        // only one branch goes deeper so that the size grows linearly with the depth
+        if (random.nextBoolean()) {
+            line(indent, "while " + condition(visible) + " loop");
+            generateBody(indent + 1, depth + 1, visible);
+        } else {
+            line(indent, "if " + condition(visible) + " then");
+            generateBody(indent + 1, depth + 1, visible);
+            line(indent, "else");
+            line(indent + 1, pick(visible) + " := " + random.nextInt(100));
+        }
+        line(indent, "end");
+    }
+
+    private String condition(List<String> names) {
+        if (random.nextBoolean()) {
+            return pick(names) + " " + pick(COMPARISON_OPERATIONS) + " " + operand(names);
+        }
+        return pick(names) + "." + pick(COMPARISONS) + "(" + pick(names) + ")";
+    }
+
+    /**
+     * @return one to three call chains or literals joined by arithmetic operations
+     */
+    private String operand(List<String> names) {
+        StringBuilder operand = new StringBuilder(chain(names));
+        int operations = random.nextInt(3);
+        for (int operation = 0; operation < operations; operation++) {
+            operand.append(' ').append(pick(OPERATIONS)).append(' ');
+            operand.append(random.nextBoolean() ? chain(names) : String.valueOf(random.nextInt(100)));
+        }
+        return operand.toString();
+    }
+
+    /**
+     * @return variable or library class followed by calls and field accesses, e.g. "Integer.Max.Plus(a)"
+     */
+    private String chain(List<String> names) {
+        StringBuilder chain = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            chain.append("Integer.").append(random.nextBoolean() ? "Max" : "Min");
+        } else {
+            chain.append(pick(names));
+        }
+        for (int call = 0; call < callChainLength; call++) {
+            chain.append('.').append(pick(INTEGER_METHODS)).append('(');
+            chain.append(random.nextBoolean() ? pick(names) : String.valueOf(random.nextInt(100)));
+            chain.append(')');
+        }
+        return chain.toString();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private void line(int indent, String text) {
+        builder.append("  ".repeat(indent)).append(text).append('\n');
+    }
+}
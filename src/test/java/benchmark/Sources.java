@@ -0,0 +1,99 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Inputs for benchmarks built from the O sources shipped with the project.
+ */
+@UtilityClass
+public class Sources {
+
+    /**
+     * @param name library class name, e.g. "Integer"
+     * @return source code of the library class from resources
+     */
+    public String libraryClass(String name) throws IOException {
+        try (InputStream inputStream = Sources.class.getClassLoader().getResourceAsStream("lib/" + name + ".txt")) {
+            assert inputStream != null;
+            return new String(inputStream.readAllBytes());
+        }
+    }
+
+    /**
+     * @param source program text
+     * @param lines minimal number of lines in the result
+     * @return source repeated until it has at least the given number of lines
+     */
+    public String repeatToLines(String source, int lines) {
+        int linesInSource = Math.max(1, (int) source.lines().count());
+        int copies = (lines + linesInSource - 1) / linesInSource;
+        StringBuilder builder = new StringBuilder(source.length() * copies + copies);
+        for (int copy = 0; copy < copies; copy++) {
+            builder.append(source).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param depth number of nested loops
+     * @return class with one method whose body nests while loops and if statements the given number of levels deep
+     */
+    public String nestedProgram(int depth) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("class Deep is\n");
+        builder.append("  var limit : Integer\n");
+        builder.append("  method run(a : Integer) : Integer is\n");
+        builder.append("    var x : Integer\n");
+        for (int level = 0; level < depth; level++) {
+            String indent = "    " + "  ".repeat(level);
+            builder.append(indent).append("while x < a loop\n");
+            builder.append(indent).append("  x := x.Plus(1)\n");
+            builder.append(indent).append("  if x > limit then\n");
+            builder.append(indent).append("    x := x.Minus(a.Div(2))\n");
+            builder.append(indent).append("  else\n");
+            builder.append(indent).append("    x := 2\n");
+            builder.append(indent).append("  end\n");
+        }
+        for (int level = depth - 1; level >= 0; level--) {
+            builder.append("    ").append("  ".repeat(level)).append("end\n");
+        }
+        builder.append("    return x\n");
+        builder.append("  end\n");
+        builder.append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * @param members number of methods
+     * @return class with the given number of methods, each with a loop, a condition and a nested class every tenth
+     */
+    public String wideProgram(int members) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("class Wide is\n");
+        builder.append("  var limit : Integer\n");
+        for (int member = 0; member < members; member++) {
+            if (member % 10 == 9) {
+                builder.append("  class Inner").append(member).append(" is\n");
+                builder.append("    var value : Integer\n");
+                builder.append("  end\n");
+                continue;
+            }
+            builder.append("  method run").append(member).append("(a : Integer) : Integer is\n");
+            builder.append("    var x : Integer\n");
+            builder.append("    while x < a + limit loop\n");
+            builder.append("      if x > ").append(member).append(" then\n");
+            builder.append("        x := x.Minus(a.Div(2))\n");
+            builder.append("      else\n");
+            builder.append("        x := x * 2 + 1\n");
+            builder.append("      end\n");
+            builder.append("    end\n");
+            builder.append("    return this.limit\n");
+            builder.append("  end\n");
+        }
+        builder.append("end\n");
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import com.example.transpiler.lexer.InvalidTokenException;
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.syntaxer.FormalGrammar;
+import com.example.transpiler.syntaxer.GrammarChecker;
+import com.example.transpiler.syntaxer.Node;
+import com.example.transpiler.syntaxer.Tree;
+import com.example.transpiler.syntaxer.TreeUtil;
+import com.example.transpiler.typeChecker.CheckUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares kind-filtered queries answered by the kind index of a tree with walking the whole tree.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=benchmark.TreeQueryBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeQueryBenchmark {
+
+    @Param({"10", "100"})
+    public int classes;
+
+    private Tree tree;
+
+    @Setup
+    public void setUp() throws InvalidTokenException {
+        tree = GrammarChecker.checkGrammar(Lexer.tokenize(new ProgramGenerator(42, classes, 20, 4, 3).generate()));
+        tree.link();
+    }
+
+    @Benchmark
+    public List<Node> walk() {
+        List<Node> found = new ArrayList<>();
+        walk(tree.getRoot(), found);
+        return found;
+    }
+
+    @Benchmark
+    public List<Node> index() {
+        return tree.nodesOfKind(FormalGrammar.CLASS_DECLARATION);
+    }
+
+    @Benchmark
+    public CheckUnit variables() {
+        return TreeUtil.getAllVariablesForProgram(tree);
+    }
+
+    private void walk(Node node, List<Node> found) {
+        if (node.getType() == FormalGrammar.CLASS_DECLARATION) {
+            found.add(node);
+        }
+        for (Node child : node.getChildNodes()) {
+            walk(child, found);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TreeQueryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import com.example.transpiler.lexer.AsciiSource;
+import com.example.transpiler.lexer.Lexer;
+import com.example.transpiler.lexer.TokenBuffer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares scalar and vector scanning of the same ASCII bytes.
+ * Run with {@code mvn -Pvector test-compile exec:java -Dexec.mainClass=benchmark.VectorLexerBenchmark -Dexec.classpathScope=test},
+ * the forked JVM gets the jdk.incubator.vector module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorLexerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private AsciiSource source;
+
+    @Setup
+    public void setUp() throws IOException {
+        String program = Sources.repeatToLines(Sources.libraryClass("Integer"), lines);
+        source = new AsciiSource(ByteBuffer.wrap(program.getBytes(StandardCharsets.US_ASCII)));
+        if (!Lexer.isVectorScanningAvailable()) {
+            throw new IllegalStateException("Vector scanning is not available");
+        }
+    }
+
+    @Benchmark
+    public TokenBuffer scalar() {
+        return Lexer.tokenize(source);
+    }
+
+    @Benchmark
+    public TokenBuffer vectorized() {
+        return Lexer.tokenizeVectorized(source);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VectorLexerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}